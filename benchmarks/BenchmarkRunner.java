@@ -0,0 +1,328 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BenchmarkRunner
+{
+	// A small throughput harness in the style of JMH. JMH itself cannot be used here, since it refuses benchmark
+	// classes in the default package and the game classes can only be used from the default package, so the numbers
+	// are not JMH numbers, even though the output looks like them.
+	//
+	// As in JMH, every benchmark runs in a JVM of its own (a fork) by default, so code compiled and state left behind
+	// by one benchmark cannot change the next one's results. With --forks n, each benchmark runs in n fresh JVMs one
+	// after another and their iterations are reported together. --forks 0 runs everything in this JVM instead.
+	//
+	// Usage: java -cp target/classes BenchmarkRunner [--filter text] [--json file] [--warmup n] [--iterations n] [--time ms]
+	//                                                [--forks n]
+
+	// ===========================================================================
+	// ================================ CONSTANTS ================================
+	// ===========================================================================
+	// Starts the line on which a fork reports its measurements back
+	private static final String FORK_RESULT = "FORK RESULT ";
+
+	// ========================================================================
+	// ================================ TYPES =================================
+	// ========================================================================
+	public interface Benchmark {
+		// Runs one operation. The result is consumed by the runner so the JIT cannot remove the work.
+		long run();
+	}
+
+	private static final class Measurement {
+		// Operations per second in each iteration, and the bytes allocated and operations run while measuring
+		final List<Double> scores = new ArrayList<>();
+		long allocatedBytes;
+		long operations;
+	}
+
+	private static final class Result {
+		String name;
+		String params;
+		double score;
+		double error;
+		double min;
+		double max;
+		double allocatedBytesPerOp;
+	}
+
+	// ========================================================================
+	// ================================ FIELDS ================================
+	// ========================================================================
+	private final List<String> names = new ArrayList<>();
+	private final List<String> params = new ArrayList<>();
+	private final List<Benchmark> benchmarks = new ArrayList<>();
+	private final List<Result> results = new ArrayList<>();
+
+	private String filter = "";
+	private String jsonFile = null;
+	private int warmupIterations = 3;
+	private int measurementIterations = 5;
+	private long iterationMillis = 1000;
+	private int forks = 1;
+
+	// Set in a fork, to the benchmark it should run
+	private int forkIndex = -1;
+
+	// Everything a benchmark returns is added here, and printed at the end
+	private long sink;
+
+	private final com.sun.management.ThreadMXBean threads =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	// ========================================================================
+	// ================================ MAIN ==================================
+	// ========================================================================
+	public static void main(String[] args) throws IOException, InterruptedException {
+		BenchmarkRunner runner = new BenchmarkRunner();
+
+		for(int i = 0; i < args.length; i++){
+			switch(args[i]){
+				case "--filter":     runner.filter = args[++i]; break;
+				case "--json":       runner.jsonFile = args[++i]; break;
+				case "--warmup":     runner.warmupIterations = Integer.parseInt(args[++i]); break;
+				case "--iterations": runner.measurementIterations = Integer.parseInt(args[++i]); break;
+				case "--time":       runner.iterationMillis = Long.parseLong(args[++i]); break;
+				case "--forks":      runner.forks = Integer.parseInt(args[++i]); break;
+				case "--fork":       runner.forkIndex = Integer.parseInt(args[++i]); break;
+				default:
+					System.out.println("Unknown option " + args[i]);
+					return;
+			}
+		}
+
+		ModelBenchmarks.register(runner);
+		SearchBenchmarks.register(runner);
+		FileBenchmarks.register(runner);
+		MetricsBenchmarks.register(runner);
+		RenderBenchmarks.register(runner);
+
+		runner.runAll();
+	}
+
+	public void add(String name, String params, Benchmark benchmark){
+		// params describes the setup, e.g. "rows=6,cols=7,numberToWin=4"
+		names.add(name);
+		this.params.add(params);
+		benchmarks.add(benchmark);
+	}
+
+	// ========================================================================
+	// ================================ RUNNING ===============================
+	// ========================================================================
+	private void runAll() throws IOException, InterruptedException {
+		if(forkIndex >= 0){
+			// This is a fork, which measures one benchmark and reports back to the JVM that started it
+			Measurement measurement = measure(benchmarks.get(forkIndex));
+			StringBuilder line = new StringBuilder(FORK_RESULT);
+			for(double score : measurement.scores){
+				line.append(score).append(',');
+			}
+			line.append(' ').append(measurement.allocatedBytes).append(' ').append(measurement.operations).append(' ').append(sink);
+			System.out.println(line);
+			return;
+		}
+
+		for(int i = 0; i < benchmarks.size(); i++){
+			if(!(names.get(i) + " " + params.get(i)).contains(filter)){
+				continue;
+			}
+
+			Measurement measurement;
+			if(forks > 0){
+				measurement = new Measurement();
+				for(int f = 0; f < forks; f++){
+					measureInFork(i, measurement);
+				}
+			} else {
+				measurement = measure(benchmarks.get(i));
+			}
+
+			Result result = summarise(measurement);
+			result.name = names.get(i);
+			result.params = params.get(i);
+			results.add(result);
+
+			System.out.printf("%-40s %-40s %14.1f +- %10.1f ops/s %10.1f B/op%n",
+					result.name, result.params, result.score, result.error, result.allocatedBytesPerOp);
+		}
+
+		System.out.println("(sink " + sink + ")");
+
+		if(jsonFile != null){
+			writeJson();
+			System.out.println("Results written to " + jsonFile);
+		}
+	}
+
+	private Measurement measure(Benchmark benchmark){
+		for(int i = 0; i < warmupIterations; i++){
+			runIteration(benchmark, null);
+		}
+
+		Measurement measurement = new Measurement();
+		long[] allocation = new long[2];
+		for(int i = 0; i < measurementIterations; i++){
+			measurement.scores.add(runIteration(benchmark, allocation));
+		}
+		measurement.allocatedBytes = allocation[0];
+		measurement.operations = allocation[1];
+		return measurement;
+	}
+
+	private void measureInFork(int index, Measurement measurement) throws IOException, InterruptedException {
+		// Runs the benchmark in a new JVM, with the same options and classpath as this one, and adds its iterations
+		// to the measurement. Anything else the fork prints is passed on.
+		List<String> command = new ArrayList<>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add("BenchmarkRunner");
+		command.add("--fork");
+		command.add(Integer.toString(index));
+		command.add("--warmup");
+		command.add(Integer.toString(warmupIterations));
+		command.add("--iterations");
+		command.add(Integer.toString(measurementIterations));
+		command.add("--time");
+		command.add(Long.toString(iterationMillis));
+
+		Process fork = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+		String reported = null;
+		try(BufferedReader output = new BufferedReader(new InputStreamReader(fork.getInputStream()))){
+			String line;
+			while((line = output.readLine()) != null){
+				if(line.startsWith(FORK_RESULT)){
+					reported = line.substring(FORK_RESULT.length());
+				} else {
+					System.out.println(line);
+				}
+			}
+		}
+		int exitCode = fork.waitFor();
+		if(reported == null){
+			throw new IOException("The fork running " + names.get(index) + " " + params.get(index) + " exited with code "
+					+ exitCode + " without reporting a result");
+		}
+
+		String[] fields = reported.split(" ");
+		for(String score : fields[0].split(",")){
+			if(!score.isEmpty()){
+				measurement.scores.add(Double.parseDouble(score));
+			}
+		}
+		measurement.allocatedBytes += Long.parseLong(fields[1]);
+		measurement.operations += Long.parseLong(fields[2]);
+		sink += Long.parseLong(fields[3]);
+	}
+
+	private static Result summarise(Measurement measurement){
+		Result result = new Result();
+		List<Double> scores = measurement.scores;
+		double sum = 0;
+		result.min = Double.MAX_VALUE;
+		for(double score : scores){
+			sum += score;
+			result.min = Math.min(result.min, score);
+			result.max = Math.max(result.max, score);
+		}
+		result.score = sum / scores.size();
+
+		// Error is the half width of a rough 99% confidence interval, as JMH reports it
+		double squares = 0;
+		for(double score : scores){
+			squares += (score - result.score) * (score - result.score);
+		}
+		double deviation = scores.size() > 1 ? Math.sqrt(squares / (scores.size() - 1)) : 0;
+		result.error = 2.576 * deviation / Math.sqrt(scores.size());
+
+		result.allocatedBytesPerOp = measurement.operations == 0 ? 0 : (double) measurement.allocatedBytes / measurement.operations;
+		return result;
+	}
+
+	private double runIteration(Benchmark benchmark, long[] allocation){
+		// Runs the benchmark in batches until the iteration time is up, returning operations per second.
+		// allocation collects the bytes allocated and operations run, if it is not null.
+		long threadId = Thread.currentThread().getId();
+		long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+
+		long operations = 0;
+		long batch = 1;
+		long start = System.nanoTime();
+		long end = start + iterationMillis * 1_000_000;
+		long now = start;
+		long local = 0;
+
+		while(now < end){
+			for(long i = 0; i < batch; i++){
+				local += benchmark.run();
+			}
+			operations += batch;
+			if(batch < 1 << 20){
+				batch <<= 1;
+			}
+			now = System.nanoTime();
+		}
+
+		long allocatedAfter = threads.getThreadAllocatedBytes(threadId);
+		sink += local;
+
+		if(allocation != null){
+			allocation[0] += allocatedAfter - allocatedBefore;
+			allocation[1] += operations;
+		}
+		return operations / ((now - start) / 1e9);
+	}
+
+	// ========================================================================
+	// ================================ OUTPUT ================================
+	// ========================================================================
+	private void writeJson() throws IOException {
+		// The layout follows the JMH JSON result format, so the same tools can be used to compare runs
+		StringBuilder json = new StringBuilder("[\n");
+		for(int i = 0; i < results.size(); i++){
+			Result r = results.get(i);
+			json.append("    {\n");
+			json.append("        \"benchmark\" : \"").append(r.name).append("\",\n");
+			json.append("        \"mode\" : \"thrpt\",\n");
+			json.append("        \"forks\" : ").append(forks).append(",\n");
+			json.append("        \"warmupIterations\" : ").append(warmupIterations).append(",\n");
+			json.append("        \"measurementIterations\" : ").append(measurementIterations).append(",\n");
+			json.append("        \"measurementTime\" : \"").append(iterationMillis).append(" ms\",\n");
+			json.append("        \"params\" : {");
+			String[] pairs = r.params.isEmpty() ? new String[0] : r.params.split(",");
+			for(int p = 0; p < pairs.length; p++){
+				String[] keyValue = pairs[p].split("=", 2);
+				json.append(p == 0 ? "\n" : ",\n");
+				json.append("            \"").append(keyValue[0]).append("\" : \"").append(keyValue[1]).append("\"");
+			}
+			json.append(pairs.length == 0 ? "},\n" : "\n        },\n");
+			json.append("        \"primaryMetric\" : {\n");
+			json.append("            \"score\" : ").append(r.score).append(",\n");
+			json.append("            \"scoreError\" : ").append(r.error).append(",\n");
+			json.append("            \"scoreConfidence\" : [").append(r.score - r.error).append(", ").append(r.score + r.error).append("],\n");
+			json.append("            \"min\" : ").append(r.min).append(",\n");
+			json.append("            \"max\" : ").append(r.max).append(",\n");
+			json.append("            \"scoreUnit\" : \"ops/s\"\n");
+			json.append("        },\n");
+			json.append("        \"secondaryMetrics\" : {\n");
+			json.append("            \"gc.alloc.rate.norm\" : {\n");
+			json.append("                \"score\" : ").append(r.allocatedBytesPerOp).append(",\n");
+			json.append("                \"scoreUnit\" : \"B/op\"\n");
+			json.append("            }\n");
+			json.append("        }\n");
+			json.append(i == results.size() - 1 ? "    }\n" : "    },\n");
+		}
+		json.append("]\n");
+
+		try(FileWriter writer = new FileWriter(jsonFile)){
+			writer.write(json.toString());
+		}
+	}
+}
@@ -0,0 +1,223 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Scanner;
+
+public final class FileBenchmarks
+{
+	// Saving and loading a batch of boards, with the binary format against the text format used before it.
+	// The text path does exactly what Controller used to do: build each row with +=, create the file, write it a line
+	// at a time, then count its lines and read it again to load it. The boards are written to savedBoards as
+	// benchmark-<n>, and deleted when the benchmarks finish.
+
+	// ===========================================================================
+	// ================================ CONSTANTS ================================
+	// ===========================================================================
+	private static final int BOARDS = 10_000;
+	private static final String PREFIX = "benchmark-";
+
+	// The old path prints a few lines for every file, which would swamp the results
+	private static final PrintStream SILENT = new PrintStream(OutputStream.nullOutputStream());
+
+	private FileBenchmarks()
+	{
+		// Nothing to do!
+	}
+
+	public static void register(BenchmarkRunner runner){
+		new File(FileHandling.DIRECTORY).mkdirs();
+		Runtime.getRuntime().addShutdownHook(new Thread(FileBenchmarks::deleteFiles));
+
+		int[][] sizes = {{6, 7, 4}, {20, 20, 5}};
+		for(int[] size : sizes){
+			int rows = size[0];
+			int cols = size[1];
+			int numberToWin = size[2];
+			String params = "rows=" + rows + ",cols=" + cols + ",numberToWin=" + numberToWin + ",boards=" + BOARDS;
+
+			// Half full, so there is something on every row
+			Model model = ModelBenchmarks.position(rows, cols, numberToWin, rows * cols / 2);
+			Model loaded = ModelBenchmarks.newModel(rows, cols, numberToWin);
+
+			runner.add("FileHandling.saveAndLoad", params + ",format=text", () -> silently(() -> {
+				long discs = 0;
+				for(int i = 0; i < BOARDS; i++){
+					saveText(PREFIX + i, model);
+					discs += loadText(PREFIX + i, loaded);
+				}
+				return discs;
+			}));
+
+			runner.add("FileHandling.saveAndLoad", params + ",format=binary", () -> silently(() -> {
+				long discs = 0;
+				for(int i = 0; i < BOARDS; i++){
+					FileHandling.saveBoard(PREFIX + i, model);
+					FileHandling.loadBoard(PREFIX + i, loaded);
+					discs += loaded.getNumberOfPieces();
+				}
+				return discs;
+			}));
+		}
+	}
+
+	// ========================================================================
+	// ================================ TEXT PATH =============================
+	// ========================================================================
+	private static void saveText(String filename, Model model){
+		int[][] board = model.getBoard();
+		String[] rows = new String[model.getNrRows()];
+
+		createFile(filename);
+		for(int r = 0; r < model.getNrRows(); r++){
+			String row = "";
+			for(int c = 0; c < model.getNrCols(); c++){
+				if(board[r][c] == -1){
+					row += 2;
+				} else{
+					row += board[r][c];
+				}
+			}
+			rows[r] = row;
+		}
+		writeToFile(filename, rows);
+	}
+
+	private static int loadText(String filename, Model model){
+		model.wipeBoard();
+		String[] rows = readFile(filename, numberOfLinesInFile(filename));
+
+		int discs = 0;
+		for(int r = 0; r < model.getNrRows(); r++){
+			String row = rows[r];
+			for(int c = 0; c < model.getNrCols(); c++){
+				char character = row.charAt(c);
+				if(character == '0'){
+					model.setBoard(r, c, Model.emptySpace);
+				} else if (character == '1'){
+					discs++;
+					model.setBoard(r, c, Model.playerOne);
+				} else if (character == '2'){
+					discs++;
+					model.setBoard(r, c, Model.playerTwo);
+				}
+			}
+		}
+		model.setNumberOfPieces(discs);
+		return discs;
+	}
+
+	// ========================================================================
+	// ================================ OLD FILE API ==========================
+	// ========================================================================
+	// The text file methods FileHandling had before binary saves, kept here unchanged as the baseline
+
+	private static void createFile(String filename){
+
+		// Creates a file called "<filename>.txt" and places it in the savedBoards folder
+
+		try {
+			// Use a file seperator since path notation is inconsistent across platforms
+			File f = new File("savedBoards" + File.separator + filename + ".txt");
+
+			if (f.createNewFile()) {
+				System.out.println("File created: " + f.getName());
+				System.out.println("Absolute path: " + f.getAbsolutePath());
+			} else {
+				System.out.println("File already exists.");
+			}
+		} catch (IOException e) {
+			// This occurs if the file could not be created for some reason
+			System.out.println("An error occurred.");
+			e.printStackTrace();
+		}
+	}
+
+	private static void writeToFile(String filename, String[] input){
+		// writes to a file "<filename>.txt" within the savedBoards folder, with a String array as input
+		try {
+
+			FileWriter myWriter = new FileWriter("savedBoards" + File.separator + filename + ".txt");
+
+			// Write each line and then take a new line
+			for(String line : input){
+				myWriter.write(line);
+				myWriter.write("\n");
+
+			}
+			myWriter.close();
+			System.out.println("Successfully wrote to the file.");
+
+		} catch (IOException e) {
+			System.out.println("An error occurred.");
+			e.printStackTrace();
+		}
+	}
+
+	private static String[] readFile(String filename, int numberOfLines){
+		String[] output = new String[numberOfLines];
+		try {
+			File myObj = new File("savedBoards" + File.separator + filename + ".txt");
+			Scanner myReader = new Scanner(myObj);
+
+			int i = 0;
+			while (myReader.hasNextLine()) {
+				String data = myReader.nextLine(); // read the line
+				output[i] = data; // save the data
+				i++; // increment line counter
+			}
+
+			myReader.close();
+		} catch (FileNotFoundException e) {
+			System.out.println("An error occurred.");
+			e.printStackTrace();
+		}
+
+		return output;
+	}
+
+	private static int numberOfLinesInFile(String filename){
+		// naive way to find the number of lines in a file
+		try {
+			File myObj = new File("savedBoards" + File.separator + filename + ".txt");
+			Scanner myReader = new Scanner(myObj);
+
+			int numberOfLines = 0;
+			while (myReader.hasNextLine()) {
+				String data = myReader.nextLine(); // read the line
+				numberOfLines++; // increment line counter
+			}
+
+			myReader.close();
+			return numberOfLines;
+		} catch (FileNotFoundException e) {
+			System.out.println("An error occurred.");
+			e.printStackTrace();
+		}
+		return -1;
+	}
+
+	// ========================================================================
+	// ================================ HELPERS ===============================
+	// ========================================================================
+	private static long silently(BenchmarkRunner.Benchmark benchmark){
+		PrintStream out = System.out;
+		System.setOut(SILENT);
+		try {
+			return benchmark.run();
+		} finally {
+			System.setOut(out);
+		}
+	}
+
+	private static void deleteFiles(){
+		File[] files = new File(FileHandling.DIRECTORY).listFiles((dir, name) -> name.startsWith(PREFIX));
+		if(files != null){
+			for(File file : files){
+				file.delete();
+			}
+		}
+	}
+}
@@ -0,0 +1,234 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+public final class LoadGenerator
+{
+	// Simulates many players at once against a SessionManager in the same JVM, to measure how quickly sessions
+	// answer when thousands of games are going on together. Every client opens a session over a QueueChannel and
+	// plays whole games against the computer through the normal menus, choosing random columns.
+	//
+	// The latency of a move is the time from the client sending its column to receiving the session's reply, which
+	// includes the computer's answer and the new board.
+	//
+	// Usage: java -cp target/classes LoadGenerator [--clients n] [--games n] [--think ms] [--strategy name]
+	//            [--depth n] [--time ms] [--seed n] [--workers n] [--render full|quiet]
+	//
+	// With --workers, the computer's moves are worked out by a MoveService with that many threads instead of on the
+	// sessions' own threads, and the service's queue and timing figures are printed as well.
+
+	// ===========================================================================
+	// ================================ CONSTANTS ================================
+	// ===========================================================================
+	private static final String COMPUTER_MOVE = "The computer places a disc in column ";
+	private static final String GAME_OVER = "Game over";
+
+	// ========================================================================
+	// ================================ FIELDS ================================
+	// ========================================================================
+	private int clients = 10_000;
+	private int games = 1;
+	private long thinkMillis = 0;
+	private ComputerPlayer.Strategy strategy = ComputerPlayer.Strategy.PLAY_FOR_WIN;
+	private int searchDepth = 4;
+	private long timeBudgetMillis = 50;
+	private long seed = 1;
+	private int workers = 0;
+	private TextView.RenderMode renderMode = TextView.RenderMode.FULL;
+
+	// Move latencies of one client, in nanoseconds, and whether it got through all of its games
+	private static final class ClientResult {
+		long[] latencies = new long[64];
+		int moves;
+		boolean finished;
+
+		void add(long nanos){
+			if(moves == latencies.length){
+				latencies = Arrays.copyOf(latencies, 2 * moves);
+			}
+			latencies[moves++] = nanos;
+		}
+	}
+
+	private LoadGenerator()
+	{
+		// Nothing to do!
+	}
+
+	// ========================================================================
+	// ================================ MAIN ==================================
+	// ========================================================================
+	public static void main(String[] args) throws Exception {
+		LoadGenerator generator = new LoadGenerator();
+		try {
+			for(int i = 0; i < args.length; i += 2){
+				String value = i + 1 < args.length ? args[i + 1] : "";
+				switch(args[i]){
+					case "--clients":  generator.clients = Integer.parseInt(value); break;
+					case "--games":    generator.games = Integer.parseInt(value); break;
+					case "--think":    generator.thinkMillis = Long.parseLong(value); break;
+					case "--strategy": generator.strategy = ComputerPlayer.Strategy.valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_')); break;
+					case "--depth":    generator.searchDepth = Integer.parseInt(value); break;
+					case "--time":     generator.timeBudgetMillis = Long.parseLong(value); break;
+					case "--seed":     generator.seed = Long.parseLong(value); break;
+					case "--workers":  generator.workers = Integer.parseInt(value); break;
+					case "--render":   generator.renderMode = TextView.RenderMode.valueOf(value.toUpperCase(Locale.ROOT)); break;
+					default:
+						System.out.println("Unknown option " + args[i]);
+						return;
+				}
+			}
+		} catch (IllegalArgumentException e) {
+			// Also catches NumberFormatException
+			System.out.println(e.getMessage());
+			System.out.println("Usage: LoadGenerator [--clients n] [--games n] [--think ms] [--strategy name] [--depth n] [--time ms] [--seed n] [--workers n] [--render full|quiet]");
+			return;
+		}
+		generator.run();
+	}
+
+	private void run() throws Exception {
+		SessionManager manager = new SessionManager(SaveCatalog.open());
+		manager.setStrategy(strategy);
+		manager.setSearchDepth(searchDepth);
+		manager.setTimeBudgetMillis(timeBudgetMillis);
+		MoveService service = workers > 0 ? new MoveService(workers, MoveService.DEFAULT_TABLE_SIZE_MEGABYTES) : null;
+		manager.setMoveService(service);
+		manager.setRenderMode(renderMode);
+
+		System.out.println("Starting " + clients + " clients playing " + games + " game(s) each against " + strategy
+				+ " on " + (manager.usesVirtualThreads() ? "virtual threads" : "platform threads (virtual threads need Java 21)")
+				+ (service != null ? ", with moves worked out by " + workers + " worker(s)" : ""));
+
+		ExecutorService clientThreads = SessionManager.newThreadPerTaskExecutor();
+		List<Future<ClientResult>> futures = new ArrayList<>(clients);
+		long start = System.nanoTime();
+
+		for(int c = 0; c < clients; c++){
+			QueueChannel channel = new QueueChannel();
+			manager.open(channel);
+			SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + c);
+			futures.add(clientThreads.submit(() -> playClient(channel, random)));
+		}
+
+		List<ClientResult> results = new ArrayList<>(clients);
+		for(Future<ClientResult> future : futures){
+			results.add(future.get());
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		clientThreads.shutdown();
+		manager.shutdown();
+		report(results, seconds);
+		if(service != null){
+			System.out.println("Move service: " + service.describe());
+			service.shutdown();
+		}
+	}
+
+	// ========================================================================
+	// ================================ CLIENT ================================
+	// ========================================================================
+	private ClientResult playClient(QueueChannel channel, SplittableRandom random) throws InterruptedException {
+		// Plays the client's games, keeping its own copy of the board to choose legal columns from
+		ClientResult result = new ClientResult();
+		Model board = new Model();
+
+		if(channel.receive() == null){
+			return result; // The opening menu
+		}
+
+		for(int game = 0; game < games; game++){
+			board.wipeBoard();
+			channel.send("c");
+			if(channel.receive() == null){
+				return result;
+			}
+
+			while(true){
+				int col = randomColumn(board, random);
+				long sent = System.nanoTime();
+				channel.send(String.valueOf(col + 1));
+				String reply = channel.receive();
+				result.add(System.nanoTime() - sent);
+				if(reply == null){
+					return result;
+				}
+
+				board.makeMove(col);
+				int at = reply.indexOf(COMPUTER_MOVE);
+				if(at >= 0){
+					int end = at + COMPUTER_MOVE.length();
+					while(end < reply.length() && Character.isDigit(reply.charAt(end))){
+						end++;
+					}
+					board.makeMove(Integer.parseInt(reply.substring(at + COMPUTER_MOVE.length(), end)) - 1);
+				}
+				if(reply.contains(GAME_OVER)){
+					break;
+				}
+
+				if(thinkMillis > 0){
+					Thread.sleep(thinkMillis);
+				}
+			}
+		}
+
+		// End the session, and wait for it to close
+		channel.send("e");
+		while(channel.receive() != null){
+			// Nothing to do!
+		}
+		result.finished = true;
+		return result;
+	}
+
+	private static int randomColumn(Model board, SplittableRandom random){
+		int col = random.nextInt(board.getNrCols());
+		while(!board.isMoveValid(col)){
+			col = random.nextInt(board.getNrCols());
+		}
+		return col;
+	}
+
+	// ========================================================================
+	// ================================ REPORT ================================
+	// ========================================================================
+	private void report(List<ClientResult> results, double seconds){
+		int moves = 0;
+		int finished = 0;
+		for(ClientResult result : results){
+			moves += result.moves;
+			finished += result.finished ? 1 : 0;
+		}
+
+		long[] latencies = new long[moves];
+		int next = 0;
+		for(ClientResult result : results){
+			System.arraycopy(result.latencies, 0, latencies, next, result.moves);
+			next += result.moves;
+		}
+		Arrays.sort(latencies);
+
+		System.out.printf(Locale.ROOT, "%d of %d clients finished, %d moves in %.2f s, %.0f moves per second%n",
+				finished, results.size(), moves, seconds, moves / seconds);
+		System.out.printf(Locale.ROOT, "Move latency: p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms%n",
+				percentileMillis(latencies, 0.50), percentileMillis(latencies, 0.99),
+				percentileMillis(latencies, 0.999), percentileMillis(latencies, 1.0));
+		System.out.println("Peak platform threads: " + ManagementFactory.getThreadMXBean().getPeakThreadCount());
+	}
+
+	private static double percentileMillis(long[] sorted, double fraction){
+		if(sorted.length == 0){
+			return 0;
+		}
+		// The smallest latency which at least this fraction of moves were as quick as
+		int index = Math.max(0, (int) Math.ceil(fraction * sorted.length) - 1);
+		return sorted[index] / 1e6;
+	}
+}
@@ -0,0 +1,58 @@
+public final class MetricsBenchmarks
+{
+	// The same operations with metrics off and on, to show what counting costs on the hottest paths.
+	// Run just these with: java -cp target/classes BenchmarkRunner --filter metrics=
+
+	private MetricsBenchmarks()
+	{
+		// Nothing to do!
+	}
+
+	public static void register(BenchmarkRunner runner){
+		String params = "rows=6,cols=7,numberToWin=4";
+
+		for(boolean on : new boolean[]{false, true}){
+			String state = ",metrics=" + (on ? "on" : "off");
+
+			Model model = ModelBenchmarks.position(6, 7, 4, 21);
+			int[] legal = ModelBenchmarks.legalMoves(model);
+			int[] next = {0};
+			runner.add("Model.makeMove+undoMove", params + state, withMetrics(on, () -> {
+				int col = legal[next[0]];
+				next[0] = (next[0] + 1) % legal.length;
+				model.makeMove(col);
+				model.undoMove(col);
+				return col;
+			}));
+
+			runner.add("Model.isGameWon", params + state, withMetrics(on, () -> {
+				int col = legal[next[0]];
+				next[0] = (next[0] + 1) % legal.length;
+				return model.isGameWon(col) ? 1 : 0;
+			}));
+
+			Model quiet = ModelBenchmarks.position(6, 7, 4, 10);
+			ComputerPlayer player = new ComputerPlayer(quiet, 1);
+			player.setRandomSeed(1);
+			runner.add("ComputerPlayer.playForWin", params + state, withMetrics(on, player::playForWin));
+
+			// A whole search, which makes and undoes millions of moves
+			TranspositionTable table = new TranspositionTable(1);
+			NegamaxSearch search = new NegamaxSearch(quiet, table);
+			search.setMaxDepth(8);
+			search.setTimeBudgetMillis(0);
+			runner.add("NegamaxSearch.bestMove", params + ",depth=8" + state, withMetrics(on, () -> {
+				table.clear();
+				return search.bestMove() + search.getNodes();
+			}));
+		}
+	}
+
+	private static BenchmarkRunner.Benchmark withMetrics(boolean on, BenchmarkRunner.Benchmark benchmark){
+		// Metrics are switched for the whole JVM, so each operation sets them the way its benchmark wants
+		return () -> {
+			Metrics.setEnabled(on);
+			return benchmark.run();
+		};
+	}
+}
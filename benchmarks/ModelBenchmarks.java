@@ -0,0 +1,191 @@
+import java.util.SplittableRandom;
+
+public final class ModelBenchmarks
+{
+	// Board sizes used throughout: the standard game, medium Connect-X boards, and large resized boards
+	private static final int[][] SIZES = {
+			// rows, cols, numberToWin
+			{6, 7, 4},
+			{10, 10, 5},
+			{20, 20, 8},
+			{100, 100, 10},
+			{200, 200, 4}
+	};
+
+	private static final int HUGE_DISCS = 2000;
+
+	private ModelBenchmarks()
+	{
+		// Nothing to do!
+	}
+
+	public static void register(BenchmarkRunner runner){
+		for(int[] size : SIZES){
+			int rows = size[0];
+			int cols = size[1];
+			int numberToWin = size[2];
+			String params = "rows=" + rows + ",cols=" + cols + ",numberToWin=" + numberToWin;
+
+			runner.add("Model.isMoveValid", params, moveGeneration(rows, cols, numberToWin));
+			runner.add("Model.makeMove+undoMove", params, makeAndUndo(rows, cols, numberToWin));
+			runner.add("Model.isGameWon", params, winCheck(rows, cols, numberToWin));
+			runner.add("Model.isGameWon", params + ",position=won", wonCheck(rows, cols, numberToWin));
+			runner.add("Model.randomPlayout", params, randomPlayout(rows, cols, numberToWin));
+		}
+
+		// A huge Connect-6 board with a game's worth of discs, where the cost should follow the discs, not the board
+		String huge = "rows=1000,cols=1000,numberToWin=6,discs=" + HUGE_DISCS;
+		Model hugeModel = position(1000, 1000, 6, HUGE_DISCS);
+		runner.add("Model.makeMove+undoMove", huge, makeAndUndo(hugeModel));
+		runner.add("Model.isGameWon", huge, winCheck(hugeModel));
+		runner.add("Model.copy", huge, () -> new Model(hugeModel).getNumberOfPieces());
+		runner.add("Model.wipeBoard+opening", "rows=1000,cols=1000,numberToWin=6,moves=100", opening(1000, 1000, 6, 100));
+	}
+
+	// ========================================================================
+	// ================================ BENCHMARKS ============================
+	// ========================================================================
+	private static BenchmarkRunner.Benchmark moveGeneration(int rows, int cols, int numberToWin){
+		// Counts the legal moves in a half full position, the first step of every search node
+		Model model = position(rows, cols, numberToWin, rows * cols / 2);
+		return () -> {
+			long legal = 0;
+			for(int c = 0; c < cols; c++){
+				if(model.isMoveValid(c)){
+					legal++;
+				}
+			}
+			return legal;
+		};
+	}
+
+	private static BenchmarkRunner.Benchmark makeAndUndo(int rows, int cols, int numberToWin){
+		return makeAndUndo(position(rows, cols, numberToWin, rows * cols / 2));
+	}
+
+	private static BenchmarkRunner.Benchmark makeAndUndo(Model model){
+		int[] legal = legalMoves(model);
+		int[] next = {0};
+		return () -> {
+			int col = legal[next[0]];
+			next[0] = (next[0] + 1) % legal.length;
+			model.makeMove(col);
+			model.undoMove(col);
+			return col;
+		};
+	}
+
+	private static BenchmarkRunner.Benchmark winCheck(int rows, int cols, int numberToWin){
+		// Win check on the top disc of every column of a half full board, cycling through the columns
+		return winCheck(position(rows, cols, numberToWin, rows * cols / 2));
+	}
+
+	private static BenchmarkRunner.Benchmark winCheck(Model model){
+		int cols = model.getNrCols();
+		int[] next = {0};
+		return () -> {
+			int col = next[0];
+			next[0] = (col + 1) % cols;
+			return model.isGameWon(col) ? 1 : 0;
+		};
+	}
+
+	private static BenchmarkRunner.Benchmark wonCheck(int rows, int cols, int numberToWin){
+		// Win check straight after the winning disc, in the middle of a row of numberToWin discs along the bottom.
+		// This reads the most bits of any check, and like every other isGameWon benchmark should report 0 B/op.
+		Model model = newModel(rows, cols, numberToWin);
+		for(int c = 0; c < numberToWin; c++){
+			model.setBoard(rows - 1, c, Model.playerOne);
+		}
+		int lastCol = numberToWin / 2;
+		return () -> model.isGameWon(lastCol) ? 1 : 0;
+	}
+
+	private static BenchmarkRunner.Benchmark randomPlayout(int rows, int cols, int numberToWin){
+		// A whole game of random moves from the empty board until someone wins or the board is full
+		Model model = newModel(rows, cols, numberToWin);
+		SplittableRandom random = new SplittableRandom(42);
+		return () -> {
+			model.wipeBoard();
+			long moves = 0;
+			while(true){
+				int col = random.nextInt(cols);
+				if(!model.isMoveValid(col)){
+					continue;
+				}
+				model.makeMove(col);
+				moves++;
+				if(model.isGameWon(col) || model.isBoardFull()){
+					return moves;
+				}
+			}
+		};
+	}
+
+	private static BenchmarkRunner.Benchmark opening(int rows, int cols, int numberToWin, int moves){
+		// A new game on a big board, and its first moves around the centre, where nearly all of the board stays empty
+		Model model = newModel(rows, cols, numberToWin);
+		SplittableRandom random = new SplittableRandom(7);
+		return () -> {
+			model.wipeBoard();
+			for(int i = 0; i < moves; i++){
+				int col = cols / 2 - 8 + random.nextInt(16);
+				model.makeMove(col);
+				if(model.isGameWon(col)){
+					break;
+				}
+			}
+			return model.getNumberOfPieces();
+		};
+	}
+
+	// ========================================================================
+	// ================================ SETUP =================================
+	// ========================================================================
+	public static Model newModel(int rows, int cols, int numberToWin){
+		Model model = new Model();
+		model.setRows(rows);
+		model.setCols(cols);
+		model.setNumberToWin(numberToWin);
+		model.wipeBoard();
+		return model;
+	}
+
+	public static Model position(int rows, int cols, int numberToWin, int discs){
+		// Plays up to the given number of random moves, skipping any move which would win, so the game is still going
+		Model model = newModel(rows, cols, numberToWin);
+		SplittableRandom random = new SplittableRandom(rows * 31L + cols);
+
+		int attempts = 0;
+		while(model.getNumberOfPieces() < discs && attempts < discs * 20){
+			attempts++;
+			int col = random.nextInt(cols);
+			if(!model.isMoveValid(col)){
+				continue;
+			}
+			model.makeMove(col);
+			if(model.isGameWon(col)){
+				model.undoMove(col);
+			}
+		}
+		return model;
+	}
+
+	public static int[] legalMoves(Model model){
+		int count = 0;
+		for(int c = 0; c < model.getNrCols(); c++){
+			if(model.isMoveValid(c)){
+				count++;
+			}
+		}
+
+		int[] moves = new int[count];
+		int i = 0;
+		for(int c = 0; c < model.getNrCols(); c++){
+			if(model.isMoveValid(c)){
+				moves[i++] = c;
+			}
+		}
+		return moves;
+	}
+}
@@ -0,0 +1,110 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+public final class MoveOrderingComparison
+{
+	// Counts the positions NegamaxSearch visits on a fixed set of positions, turning on one part of MoveOrdering at a
+	// time, to show how many cutoffs each part gains. Every position is searched to a fixed depth with an empty table,
+	// so the counts are the same from run to run and machine to machine.
+	//
+	// Usage: java -cp target/classes MoveOrderingComparison
+
+	// ===========================================================================
+	// ================================ CONSTANTS ================================
+	// ===========================================================================
+	private static final int POSITIONS_PER_BOARD = 30;
+	private static final long SEED = 2024;
+
+	// rows, columns, number to win and search depth of each board in the set
+	private static final int[][] BOARDS = {
+			{6, 7, 4, 10},
+			{7, 9, 4, 8},
+			{8, 12, 5, 6},
+			{5, 4, 3, 12},
+	};
+
+	private static final String[] ORDERINGS = {
+			"columns left to right",
+			"centre first",
+			"+ table move",
+			"+ killer moves",
+			"+ history",
+	};
+
+	private MoveOrderingComparison()
+	{
+		// Nothing to do!
+	}
+
+	// ========================================================================
+	// ================================ MAIN ==================================
+	// ========================================================================
+	public static void main(String[] args){
+		System.out.printf(Locale.ROOT, "%-18s %-22s %14s %9s%n", "board", "ordering", "nodes", "vs first");
+
+		for(int[] board : BOARDS){
+			List<Model> positions = positions(board[0], board[1], board[2]);
+			String name = board[0] + "x" + board[1] + " k" + board[2] + " d" + board[3];
+			long first = 0;
+
+			for(int ordering = 0; ordering < ORDERINGS.length; ordering++){
+				long nodes = 0;
+				for(Model position : positions){
+					nodes += search(position, board[3], ordering);
+				}
+				if(ordering == 0){
+					first = nodes;
+				}
+				System.out.printf(Locale.ROOT, "%-18s %-22s %14d %8.1f%%%n", name, ORDERINGS[ordering], nodes, 100.0 * nodes / first);
+			}
+		}
+	}
+
+	private static long search(Model position, int depth, int ordering){
+		// Each ordering includes every part listed before it
+		NegamaxSearch search = new NegamaxSearch(position, new TranspositionTable(16));
+		search.setMaxDepth(depth);
+		search.setTimeBudgetMillis(0);
+
+		MoveOrdering moveOrdering = search.getOrdering();
+		moveOrdering.setCentreFirstEnabled(ordering >= 1);
+		moveOrdering.setHashMoveEnabled(ordering >= 2);
+		moveOrdering.setKillersEnabled(ordering >= 3);
+		moveOrdering.setHistoryEnabled(ordering >= 4);
+
+		search.bestMove();
+		return search.getNodes();
+	}
+
+	private static List<Model> positions(int rows, int cols, int numberToWin){
+		// Games of random moves, stopped somewhere in the opening or middle game before either player has won
+		SplittableRandom random = new SplittableRandom(SEED + rows * 31L + cols);
+		List<Model> positions = new ArrayList<>();
+
+		while(positions.size() < POSITIONS_PER_BOARD){
+			Model model = new Model();
+			model.setRows(rows);
+			model.setCols(cols);
+			model.setNumberToWin(numberToWin);
+			model.wipeBoard();
+
+			int plies = random.nextInt(rows * cols / 3);
+			boolean finished = false;
+			for(int i = 0; i < plies && !finished; i++){
+				int col = random.nextInt(cols);
+				while(!model.isMoveValid(col)){
+					col = random.nextInt(cols);
+				}
+				model.makeMove(col);
+				finished = model.isGameWon(col);
+			}
+
+			if(!finished){
+				positions.add(model);
+			}
+		}
+		return positions;
+	}
+}
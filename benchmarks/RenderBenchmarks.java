@@ -0,0 +1,44 @@
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public final class RenderBenchmarks
+{
+	// Frames per second of TextView.displayBoard on a 50x50 board, written through a StreamChannel to a stream which
+	// throws the output away, so the cost of building and encoding each frame is measured without a real terminal.
+	// Each DELTA frame follows a move or its undo, the usual case of one square changing.
+	// Run just these with: java -cp target/classes BenchmarkRunner --filter TextView
+
+	private RenderBenchmarks()
+	{
+		// Nothing to do!
+	}
+
+	public static void register(BenchmarkRunner runner){
+		int size = 50;
+		String params = "rows=" + size + ",cols=" + size + ",numberToWin=5";
+
+		for(TextView.RenderMode mode : TextView.RenderMode.values()){
+			Model model = ModelBenchmarks.position(size, size, 5, size * size / 2);
+			int[] legal = ModelBenchmarks.legalMoves(model);
+			TextView view = new TextView(new StreamChannel(InputStream.nullInputStream(), OutputStream.nullOutputStream()));
+			view.setRenderMode(mode);
+			view.displayBoard(model);
+
+			int[] next = {0};
+			boolean[] moved = {false};
+			runner.add("TextView.displayBoard", params + ",mode=" + mode.name().toLowerCase(), () -> {
+				// Alternately plays a disc and takes it back, so the board stays the same size over the run
+				int col = legal[next[0]];
+				if(moved[0]){
+					model.undoMove(col);
+					next[0] = (next[0] + 1) % legal.length;
+				} else {
+					model.makeMove(col);
+				}
+				moved[0] = !moved[0];
+				view.displayBoard(model);
+				return col;
+			});
+		}
+	}
+}
@@ -0,0 +1,66 @@
+import java.util.SplittableRandom;
+
+public final class SearchBenchmarks
+{
+	private SearchBenchmarks()
+	{
+		// Nothing to do!
+	}
+
+	public static void register(BenchmarkRunner runner){
+		String params = "rows=6,cols=7,numberToWin=4";
+
+		// A position after 10 random moves, with the next player able to win straight away in one of the cases
+		Model quiet = ModelBenchmarks.position(6, 7, 4, 10);
+		Model winning = winningPosition();
+
+		ComputerPlayer quietPlayer = new ComputerPlayer(quiet, 1);
+		ComputerPlayer winningPlayer = new ComputerPlayer(winning, 1);
+
+		runner.add("ComputerPlayer.winningMove", params, () -> quietPlayer.winningMove());
+		runner.add("ComputerPlayer.preventLosingMove", params, () -> quietPlayer.preventLosingMove());
+		runner.add("ComputerPlayer.playForWin", params + ",position=winning", () -> winningPlayer.playForWin());
+
+		for(int depth : new int[]{4, 6, 8, 10}){
+			runner.add("NegamaxSearch.bestMove", params + ",depth=" + depth, fixedDepthSearch(quiet, depth));
+		}
+
+		// Monte Carlo tree search with a fixed number of playouts, on the standard board and a large Connect-5 board
+		runner.add("MonteCarloSearch.bestMove", params + ",playouts=1000", fixedPlayouts(quiet, 1000));
+		Model large = ModelBenchmarks.position(20, 20, 5, 40);
+		runner.add("MonteCarloSearch.bestMove", "rows=20,cols=20,numberToWin=5,playouts=1000", fixedPlayouts(large, 1000));
+	}
+
+	private static BenchmarkRunner.Benchmark fixedPlayouts(Model model, int playouts){
+		// A small tree is enough for 1000 playouts. The tree is cleared each time so every operation does the same work.
+		MonteCarloSearch search = new MonteCarloSearch(model, 1 << 14, new SplittableRandom(7));
+		search.setMaxPlayouts(playouts);
+		search.setTimeBudgetMillis(Long.MAX_VALUE / 2);
+		return () -> {
+			search.clearTree();
+			return search.bestMove();
+		};
+	}
+
+	private static BenchmarkRunner.Benchmark fixedDepthSearch(Model model, int depth){
+		// The table is cleared before every search, so each operation is a complete search from scratch
+		TranspositionTable table = new TranspositionTable(1);
+		NegamaxSearch search = new NegamaxSearch(model, table);
+		search.setMaxDepth(depth);
+		search.setTimeBudgetMillis(0);
+		return () -> {
+			table.clear();
+			return search.bestMove() + search.getNodes();
+		};
+	}
+
+	private static Model winningPosition(){
+		// Player one has three in a row along the bottom and is to move
+		Model model = new Model();
+		int[] moves = {2, 2, 3, 3, 4, 4};
+		for(int col : moves){
+			model.makeMove(col);
+		}
+		return model;
+	}
+}
@@ -1,11 +1,112 @@
+import java.util.SplittableRandom;
+
 public class ComputerPlayer {
 
+    // The ways the computer can choose its moves, from weakest to strongest on the standard board.
+    // Monte Carlo tree search is best suited to large boards, where searching every move gets too slow.
+    // Perfect play solves the game outright, which is only possible on boards up to the standard size.
+    public enum Strategy { RANDOM, PLAY_FOR_WIN, SEARCH, MONTE_CARLO, PERFECT }
+
+    // How long perfect play may spend proving a move before falling back to searching ahead
+    public static final long DEFAULT_SOLVER_TIME_LIMIT_MILLIS = 5000;
+
     private final Model model;
 
+    private Strategy strategy = Strategy.SEARCH;
+
+    // Statistics about how the last move was chosen, empty if there is nothing to report
+    private String lastMoveReport = "";
+
+    // Score, depth and positions searched for the last move chosen by searchMove, in NegamaxSearch's scale.
+    // A move from the opening book has the book's score, and a depth and node count of 0.
+    private int lastScore;
+    private int lastDepth;
+    private long lastNodes;
+    private long lastMillis;
+    private double lastNodesPerSecond;
+
+    // Told about every move chosen, instead of printing anything
+    private EngineListener listener = EngineListener.NONE;
+
+    // Each computer player has its own random numbers, so random play can be repeated from a seed
+    // and many players on different threads do not compete for one shared generator
+    private SplittableRandom random = new SplittableRandom();
+
+    // Alpha-beta search used by searchMove, it plays its moves on the same model.
+    // Created the first time it is needed, so computer players which never search ahead do not pay for its table.
+    private NegamaxSearch search;
+    private final int tableSizeInMegabytes;
+    private int searchDepth = NegamaxSearch.DEFAULT_MAX_DEPTH;
+    private long timeBudgetMillis = NegamaxSearch.DEFAULT_TIME_BUDGET_MILLIS;
+
+    // Used instead of search when more than one thread is allowed, null otherwise
+    private ParallelSearch parallelSearch;
+
+    // Book of precomputed opening moves for the current board, null if there is none.
+    // bookGame records which game the book was looked up for, so a missing book is not looked for on every move.
+    private OpeningBook openingBook;
+    private String bookGame = "";
+
+    // Created the first time it is needed, since its tree takes up a fair amount of memory
+    private MonteCarloSearch monteCarlo;
+    private long monteCarloBudgetMillis = MonteCarloSearch.DEFAULT_TIME_BUDGET_MILLIS;
+
+    // Also created the first time it is needed. Its table is larger than the search's, unless the player was given a
+    // table size, which then caps the solver's table too.
+    private Solver solver;
+    private final int solverTableSizeInMegabytes;
+    private long solverTimeLimitMillis = DEFAULT_SOLVER_TIME_LIMIT_MILLIS;
+
+    // If set, moves which need a search are worked out by the service's workers instead of on this thread
+    private MoveService moveService;
+
     // Pass through the model object so it can be referenced within this class
 
     ComputerPlayer(Model model){
+        this(model, TranspositionTable.DEFAULT_SIZE_MEGABYTES, Solver.DEFAULT_TABLE_SIZE_MEGABYTES);
+    }
+
+    // The transposition table size caps how much memory each computer player uses, which matters when many games share a JVM
+    ComputerPlayer(Model model, int tableSizeInMegabytes){
+        this(model, tableSizeInMegabytes, tableSizeInMegabytes);
+    }
+
+    private ComputerPlayer(Model model, int tableSizeInMegabytes, int solverTableSizeInMegabytes){
         this.model = model;
+        this.tableSizeInMegabytes = tableSizeInMegabytes;
+        this.solverTableSizeInMegabytes = solverTableSizeInMegabytes;
+    }
+
+    private NegamaxSearch search(){
+        if(search == null){
+            search = new NegamaxSearch(model, new TranspositionTable(tableSizeInMegabytes));
+            search.setMaxDepth(searchDepth);
+            search.setTimeBudgetMillis(timeBudgetMillis);
+        }
+        return search;
+    }
+
+    public int computeMove(){
+        // Chooses a move with the current strategy, and tells the listener about it
+        lastMoveReport = "";
+        int col;
+        if(moveService != null && strategy != Strategy.RANDOM && strategy != Strategy.PLAY_FOR_WIN){
+            // The quick strategies are still played here, so a random seed set on this player still counts.
+            // The worker's own computer player times the move, so it is only counted once.
+            col = serviceMove();
+        } else {
+            long start = Metrics.COMPUTE_MOVE.start();
+            switch(strategy){
+                case RANDOM:       col = randomMove(); break;
+                case PLAY_FOR_WIN: col = playForWin(); break;
+                case MONTE_CARLO:  col = monteCarloMove(); break;
+                case PERFECT:      col = perfectMove(); break;
+                default:           col = searchMove();
+            }
+            Metrics.COMPUTE_MOVE.stop(start);
+        }
+        listener.moveChosen(col, lastMoveReport);
+        return col;
     }
 
     public int randomMove(){
@@ -14,12 +115,26 @@ public class ComputerPlayer {
 
         int nrCols = model.getNrCols();
 
-        int randomCol = (int) (Math.random() * nrCols); // Select a random column (cast the random float to an int)
-        System.out.println("random number is " + randomCol);
+        // Count the columns with space, and pick one of them at random rather than retrying until a free column comes up
+        int validCols = 0;
+        for(int c = 0; c < nrCols; c++){
+            if(model.isMoveValid(c)){
+                validCols++;
+            }
+        }
+
+        int choice = random.nextInt(validCols); // Select a random free column
 
-        while(model.getHighestDisc(randomCol) == 0){ // Whilst a column is full, select another column
-            randomCol = (int) (Math.random() * nrCols);
+        int randomCol = -1;
+        for(int c = 0; c < nrCols && randomCol == -1; c++){
+            if(model.isMoveValid(c)){
+                if(choice == 0){
+                    randomCol = c;
+                }
+                choice--;
+            }
         }
+        listener.diagnostic("random number is " + randomCol);
 
         return randomCol;
     }
@@ -28,14 +143,234 @@ public class ComputerPlayer {
         // If a winning move is available, then the cpu shall play it
         // If the opposite player can win in a single move, it shall prevent a win
         // otherwise, play randomly
+        long start = Metrics.PLAY_FOR_WIN.start();
+        int col;
 
         if(winningMove() != -1){
-            return winningMove();
+            col = winningMove();
         } else if (preventLosingMove() != -1){
-            return preventLosingMove();
+            col = preventLosingMove();
+        } else {
+            col = randomMove();
+        }
+
+        Metrics.PLAY_FOR_WIN.stop(start);
+        return col;
+    }
+
+    public int searchMove(){
+        // Looks ahead as many moves as the search depth and time budget allow, and plays the best column found
+        // This also finds every winning and blocking move that playForWin would, as they are only one or two moves deep
+        int col = openingBookMove();
+        if(col != -1){
+            lastMoveReport = "Played from the opening book";
+            lastScore = openingBook.score(model);
+            lastDepth = 0;
+            lastNodes = 0;
+            lastMillis = 0;
+            lastNodesPerSecond = 0;
+            return col;
+        }
+
+        if(parallelSearch != null){
+            col = parallelSearch.bestMove();
+            lastScore = parallelSearch.getBestScore();
+            lastDepth = parallelSearch.getCompletedDepth();
+            lastNodes = parallelSearch.getNodes();
+            lastMillis = parallelSearch.getElapsedMillis();
+            lastNodesPerSecond = parallelSearch.getNodesPerSecond();
         } else {
-            return randomMove();
+            NegamaxSearch search = search();
+            col = search.bestMove();
+            lastScore = search.getBestScore();
+            lastDepth = search.getCompletedDepth();
+            lastNodes = search.getNodes();
+            lastMillis = search.getElapsedMillis();
+            lastNodesPerSecond = search.getNodesPerSecond();
         }
+        lastMoveReport = String.format("Searched %d moves ahead, %d positions in %d ms (%.0f positions per second)",
+                lastDepth, lastNodes, lastMillis, lastNodesPerSecond);
+        return col;
+    }
+
+    public int serviceMove(){
+        // Hands the position to the move service and waits for the answer, which for a virtual thread costs nothing
+        MoveService.Result result = moveService.submit(model, strategy, searchDepth, timeBudgetMillis).join();
+        lastScore = result.getScore();
+        lastDepth = result.getDepth();
+        lastNodes = result.getNodes();
+        lastMillis = result.getServiceNanos() / 1_000_000;
+        lastNodesPerSecond = lastMillis == 0 ? 0 : 1000.0 * lastNodes / lastMillis;
+        lastMoveReport = result.getReport();
+        return result.getColumn();
+    }
+
+    public int openingBookMove(){
+        // Looks the position up in the opening book, returning -1 if it is not there
+        // The book is looked up again if the board has been resized or the number to win changed since
+        String game = model.getNrRows() + "x" + model.getNrCols() + "-connect" + model.getNumberToWin();
+        if(!game.equals(bookGame)){
+            openingBook = OpeningBook.open(model);
+            bookGame = game;
+        }
+        if(openingBook == null){
+            return -1;
+        }
+
+        int col = openingBook.lookup(model);
+        return model.isMoveValid(col) ? col : -1;
+    }
+
+    public int monteCarloMove(){
+        // Plays out random games from the current position for the time budget, and picks the most promising column
+        if(monteCarlo == null){
+            monteCarlo = new MonteCarloSearch(model, MonteCarloSearch.DEFAULT_MAX_NODES, random.split());
+            monteCarlo.setTimeBudgetMillis(monteCarloBudgetMillis);
+        }
+
+        int col = monteCarlo.bestMove();
+        lastMoveReport = String.format("%d playouts in %d ms (%.0f playouts per second), %d reused from the previous move",
+                monteCarlo.getPlayouts(), monteCarlo.getElapsedMillis(), monteCarlo.getPlayoutsPerSecond(), monteCarlo.getReusedVisits());
+        return col;
+    }
+
+    public int perfectMove(){
+        // Plays the move the solver proves best. Boards the solver cannot handle fall back to searching ahead,
+        // as do positions it cannot solve within the time limit, which only happens early in the game.
+        // The solver always goes first. The opening book comes from a limited depth search, so its moves are not
+        // proven, and it is only used through searchMove once the solver has given up.
+        if(!Solver.canSolve(model)){
+            return searchMove();
+        }
+
+        Solver solver = getSolver();
+        long start = System.currentTimeMillis();
+        int col = solver.bestMove(model);
+        if(col == -1){
+            col = searchMove();
+            lastMoveReport = "Too early in the game to solve in time. " + lastMoveReport;
+            return col;
+        }
+        // The solver always looks ahead to the end of the game, so the depth is the number of empty squares
+        lastScore = solver.getLastScore();
+        lastDepth = model.getNrRows() * model.getNrCols() - model.getNumberOfPieces();
+        lastNodes = solver.getNodes();
+        lastMillis = System.currentTimeMillis() - start;
+        lastNodesPerSecond = lastMillis == 0 ? 0 : 1000.0 * lastNodes / lastMillis;
+        lastMoveReport = Solver.describe(lastScore, model) + " (solved " + lastNodes + " positions in " + lastMillis + " ms)";
+        return col;
+    }
+
+    public void setSearchDepth(int depth){
+        searchDepth = depth;
+        if(search != null){
+            search.setMaxDepth(depth);
+        }
+        if(parallelSearch != null){
+            parallelSearch.setMaxDepth(depth);
+        }
+    }
+
+    public void setTimeBudgetMillis(long millis){
+        timeBudgetMillis = millis;
+        if(search != null){
+            search.setTimeBudgetMillis(millis);
+        }
+        if(parallelSearch != null){
+            parallelSearch.setTimeBudgetMillis(millis);
+        }
+
+        monteCarloBudgetMillis = millis;
+        if(monteCarlo != null){
+            monteCarlo.setTimeBudgetMillis(millis);
+        }
+    }
+
+    public Solver getSolver(){
+        // The player's solver, with its time limit, for anything else wanting a position solved (e.g. the v command)
+        if(solver == null){
+            solver = new Solver(solverTableSizeInMegabytes);
+            solver.setTimeLimitMillis(solverTimeLimitMillis);
+        }
+        return solver;
+    }
+
+    public void setSolverTimeLimitMillis(long millis){
+        solverTimeLimitMillis = millis;
+        if(solver != null){
+            solver.setTimeLimitMillis(millis);
+        }
+    }
+
+    public void setMoveService(MoveService moveService){
+        // Shares the service's workers, and their transposition tables, instead of searching with a table of our own
+        this.moveService = moveService;
+    }
+
+    public void setListener(EngineListener listener){
+        this.listener = listener;
+    }
+
+    public void setRandomSeed(long seed){
+        // Makes the random choices from here on repeatable, including the playouts of the Monte Carlo search
+        random = new SplittableRandom(seed);
+        if(monteCarlo != null){
+            monteCarlo.setRandom(random.split());
+        }
+    }
+
+    public Strategy getStrategy(){
+        return strategy;
+    }
+
+    public void setStrategy(Strategy strategy){
+        this.strategy = strategy;
+    }
+
+    public String getLastMoveReport(){
+        return lastMoveReport;
+    }
+
+    public int getLastScore(){
+        return lastScore;
+    }
+
+    public int getLastDepth(){
+        return lastDepth;
+    }
+
+    public long getLastNodes(){
+        return lastNodes;
+    }
+
+    public long getSolverTimeLimitMillis(){
+        return solverTimeLimitMillis;
+    }
+
+    public long getLastMillis(){
+        return lastMillis;
+    }
+
+    public double getLastNodesPerSecond(){
+        return lastNodesPerSecond;
+    }
+
+    public void setThreads(int threads){
+        // Searching on more than one thread shares the transposition table between all of them
+        if(parallelSearch != null){
+            parallelSearch.shutdown();
+            parallelSearch = null;
+        }
+
+        if(threads > 1){
+            parallelSearch = new ParallelSearch(model, search().getTable(), threads);
+            parallelSearch.setMaxDepth(searchDepth);
+            parallelSearch.setTimeBudgetMillis(timeBudgetMillis);
+        }
+    }
+
+    public TranspositionTable getTranspositionTable(){
+        return search().getTable();
     }
 
     public int winningMove(){
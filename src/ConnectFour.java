@@ -1,8 +1,32 @@
+import java.util.Arrays;
+import java.util.Locale;
+
 public final class ConnectFour
 {
 
-	public static void main(String[] args)
+	public static void main(String[] args) throws Exception
 	{
+		// -Dconnectfour.metrics.file=<file> writes the metrics to the file as the game runs, see Metrics
+		Metrics.startFromSystemProperties();
+
+		// "tournament" plays computer players against each other without the console game, see Tournament for the options
+		if(args.length > 0 && args[0].equals("tournament")){
+			Tournament.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+
+		// "evaluate" finds the best move for every position in a file, see PositionEvaluator for the options
+		if(args.length > 0 && args[0].equals("evaluate")){
+			PositionEvaluator.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+
+		// "serve" hosts many games at once for players connecting over the network, see SessionManager for the options
+		if(args.length > 0 && args[0].equals("serve")){
+			SessionManager.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+
 		// Creates a model representing the state of the game.
 		Model model = new Model();
 		
@@ -10,12 +34,25 @@ public final class ConnectFour
 		// It can print the state of the board and handles user input.
 		TextView view = new TextView();
 
+		// "--render delta" only redraws the squares which change, "--render quiet" shows no boards, see TextView
+		if(args.length > 1 && args[0].equals("--render")){
+			try {
+				view.setRenderMode(TextView.RenderMode.valueOf(args[1].toUpperCase(Locale.ROOT)));
+			} catch (IllegalArgumentException e) {
+				System.out.println("Unknown render mode " + args[1] + ", use full, delta or quiet");
+				return;
+			}
+		}
+
 		// Class which allows the computer to play
 		ComputerPlayer computer = new ComputerPlayer(model);
 		
+		// The list of saved boards, read once here so the load menu never has to search the savedBoards folder
+		SaveCatalog catalog = SaveCatalog.open();
+
 		// The controller facilitates communication between model and view.
 		// It also contains the main loop that controls the sequence of events.
-		Controller controller = new Controller(model, view, computer);
+		Controller controller = new Controller(model, view, computer, catalog);
 		
 		// Start a new session.
 		controller.startSession();
@@ -1,13 +1,45 @@
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Predicate;
+
 public final class Controller
 {
 	private final Model model;
 	private final TextView view;
 	private final ComputerPlayer computer;
-	
+	private final SaveCatalog catalog;
+
+	// Once there are more saves than this, the list can be filtered before it is shown
+	private static final int SAVES_BEFORE_FILTERING = 10;
+
+	private static final DateTimeFormatter SAVED_AT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
 	public Controller(Model model, TextView view, ComputerPlayer computer){
+		this(model, view, computer, SaveCatalog.open());
+	}
+
+	public Controller(Model model, TextView view, ComputerPlayer computer, SaveCatalog catalog){
 		this.model = model;
 		this.view = view;
 		this.computer = computer;
+		this.catalog = catalog;
+
+		// The computer player reports its moves through the listener, which shows them to the player
+		computer.setListener(new EngineListener() {
+			@Override
+			public void moveChosen(int col, String report){
+				view.println("The computer places a disc in column " + (col + 1));
+				if(!report.isEmpty()){
+					view.println(report);
+				}
+			}
+
+			@Override
+			public void diagnostic(String message){
+				view.println(message);
+			}
+		});
 	}
 
 	public void startSession(){
@@ -27,7 +59,8 @@ public final class Controller
 
 				case 'e':
 					// End game command
-					System.out.println("Session ending");
+					view.println("Session ending");
+					view.restoreTerminal();
 					endOfSession = true;
 					break;
 
@@ -52,8 +85,20 @@ public final class Controller
 					loadBoardCommand();
 					break;
 
+				case 'd':
+					computerStrategyCommand();
+					break;
+
+				case 'v':
+					solveCommand();
+					break;
+
+				case 'm':
+					metricsCommand();
+					break;
+
 				default:
-					System.out.println("Invalid char, please try again.");
+					view.println("Invalid char, please try again.");
 			}
 		}
 	}
@@ -62,6 +107,7 @@ public final class Controller
 
 		// This activates a game of connectFour between two human players
 
+		Metrics.GAMES_STARTED.increment();
 		view.displayNewGameMessage();
 		view.displayBoard(model);
 
@@ -83,7 +129,7 @@ public final class Controller
 			}
 
 			// Raise a message indicating the move
-			System.out.println(playerString + " places a disc in column " + input);
+			view.println(playerString + " places a disc in column " + input);
 
 			// Make the move and show the board
 			model.makeMove(nextMove);
@@ -94,13 +140,14 @@ public final class Controller
 		}
 
 		// Once we exit the while loop, the game has ended and we will be sent back to the startSession while loop
-		System.out.println("Game over");
+		view.println("Game over");
 	}
 
 	public void gameAgainstComputer(){
 
 		//This activates a human vs cpu game of connectFour
 
+		Metrics.GAMES_STARTED.increment();
 		view.displayNewGameMessage();
 		view.displayBoard(model);
 
@@ -120,16 +167,19 @@ public final class Controller
 
 				// If a user enters a negative number, they want to end the game.
 				if(input <= -1){
-					System.out.println("Player entered negative number, exiting game...");
+					view.println("Player entered negative number, exiting game...");
 					break;
 				}
 
 			} else {
-				nextMove = computer.playForWin();
+				nextMove = computer.computeMove();
 			}
 
 			// Once move has been validated, raise a message indicating the move
-			System.out.println(playerString + " places a disc in column " + (nextMove + 1));
+			// The computer's moves are announced by its listener, set up in the constructor
+			if(playerOneTurn){
+				view.println(playerString + " places a disc in column " + (nextMove + 1));
+			}
 
 			model.makeMove(nextMove);
 			view.displayBoard(model);
@@ -138,7 +188,7 @@ public final class Controller
 
 		}
 
-		System.out.println("Game over");
+		view.println("Game over");
 	}
 
 	// Helper methods
@@ -147,17 +197,20 @@ public final class Controller
 	public int playerMove(){
 
 		// Asks user for the next move, if negative then returns instantly, otherwise validates move
+		long start = Metrics.PLAYER_MOVE.start();
 		int input = view.askForMove();
 
-		if(input < 0){return input;} // Negative number implies player would like to quit game
-
 		// Whilst the move is invalid, keep asking for a valid move (move = input - 1 (since humans count from 1))
-		while(!model.isMoveValid(input - 1)){
-			if(input < 0){ return input; }
-			System.out.println("Column is either full or out of bounds, please try again: ");
+		// A negative number implies the player would like to quit the game, at any point
+		while(input >= 0 && !model.isMoveValid(input - 1)){
+			view.println("Column is either full or out of bounds, please try again: ");
 			input = view.askForMove();
 		}
 
+		// Every way out comes through here. Quitting is not a move, so the timer is only recorded for a valid one.
+		if(input >= 0){
+			Metrics.PLAYER_MOVE.stop(start);
+		}
 		return input;
 	}
 
@@ -166,11 +219,13 @@ public final class Controller
 		// Given a move, check whether a player has reached the end of the game
 
 		if(model.isGameWon(move)){
-			System.out.println(playerString + " has won the game!");
+			Metrics.GAMES_WON.increment();
+			view.println(playerString + " has won the game!");
 			model.wipeBoard(); // This is done so a user cannot save a won game after the game ends
 			return true;
 		} else if (model.isBoardFull()){
-			System.out.println("Board is full, game has been drawn!");
+			Metrics.GAMES_DRAWN.increment();
+			view.println("Board is full, game has been drawn!");
 			return true;
 		}
 
@@ -182,34 +237,44 @@ public final class Controller
 
 	public void twoPlayerGameCommand(){
 		// Two player game command
-		System.out.println("Playing a 2 player game of Connect-" + model.getNumberToWin());
-		System.out.println("There is " + model.getNrRows() + " rows and " + model.getNrCols() + " columns");
-		System.out.println("New game beginning...");
+		view.println("Playing a 2 player game of Connect-" + model.getNumberToWin());
+		view.println("There is " + model.getNrRows() + " rows and " + model.getNrCols() + " columns");
+		view.println("New game beginning...");
 		twoPlayerGame();
 	}
 
 	public void resizeBoardCommand(){
 		// Resize board command
-		System.out.println("Resizing...");
+		view.println("Resizing...");
 
-		System.out.println("Row dimensions ");
+		view.println("Row dimensions ");
 		int rows = view.askForSize();
 
 		// If user tries to have less rows than the number of discs it takes to win, then we ask them to try again
 		// This also handles the case where dimensions are chosen to be 0 or negative
-		while(rows < model.getNumberToWin()){
-			System.out.println("Not enough rows to win, please enter a dimension over or equal to " + model.getNumberToWin());
-			System.out.println("Row dimensions ");
+		// There must also be room for enough columns to win, see Model.isValidSize
+		while(rows < model.getNumberToWin() || !Model.isValidSize(rows, model.getNumberToWin())){
+			if(rows < model.getNumberToWin()){
+				view.println("Not enough rows to win, please enter a dimension over or equal to " + model.getNumberToWin());
+			} else {
+				view.println("Too many rows, please enter a dimension up to " + (Model.MAX_BOARD_BITS / model.getNumberToWin() - 1));
+			}
+			view.println("Row dimensions ");
 			rows = view.askForSize();
 		}
 
-		System.out.println("Column dimensions ");
+		view.println("Column dimensions ");
 		int cols = view.askForSize();
 
-		// Validate column number choice as well
-		while(cols < model.getNumberToWin()){
-			System.out.println("Not enough columns to win, please enter a dimension over or equal to " + model.getNumberToWin());
-			System.out.println("Column dimensions ");
+		// Validate column number choice as well, the board must also be small enough to number every square
+		while(cols < model.getNumberToWin() || !Model.isValidSize(rows, cols)){
+			if(cols < model.getNumberToWin()){
+				view.println("Not enough columns to win, please enter a dimension over or equal to " + model.getNumberToWin());
+			} else {
+				view.println("Too many columns, a board with " + rows + " rows can have at most "
+						+ Model.MAX_BOARD_BITS / (rows + 1L) + " columns");
+			}
+			view.println("Column dimensions ");
 			cols = view.askForSize();
 		}
 
@@ -219,19 +284,19 @@ public final class Controller
 
 	public void connectXCommand(){
 		// Change number of discs required in a row
-		System.out.println("How many in a row would you like for a win? ");
+		view.println("How many in a row would you like for a win? ");
 		int discsToWin = view.askForNum();
 
 		// Input validation, if number of discs > nrRows, nrCols then it would be impossible to win
 		while(discsToWin > model.getNrCols() || discsToWin > model.getNrRows()){
-			System.out.println("Number of discs to win is greater than rows or columns");
-			System.out.println("Enter a number less than the smallest dimension, rows: " + model.getNrRows() + " cols: " + model.getNrCols());
+			view.println("Number of discs to win is greater than rows or columns");
+			view.println("Enter a number less than the smallest dimension, rows: " + model.getNrRows() + " cols: " + model.getNrCols());
 			discsToWin = view.askForNum();
 		}
 
 		while(discsToWin < 2){
-			System.out.println("Need at least 2 or more discs in a row for a game to work.");
-			System.out.println("Please enter a valid number greater than or equal to 2");
+			view.println("Need at least 2 or more discs in a row for a game to work.");
+			view.println("Please enter a valid number greater than or equal to 2");
 			discsToWin = view.askForNum();
 		}
 
@@ -240,104 +305,151 @@ public final class Controller
 
 	public void playAgainstComputerCommand(){
 		// Play against the computer
-		System.out.println("Playing a game of Connect-" + model.getNumberToWin() + " against the computer");
-		System.out.println("There is " + model.getNrRows() + " rows and " + model.getNrCols() + " columns");
-		System.out.println("New game beginning...");
+		view.println("Playing a game of Connect-" + model.getNumberToWin() + " against the computer");
+		view.println("There is " + model.getNrRows() + " rows and " + model.getNrCols() + " columns");
+		view.println("New game beginning...");
 		gameAgainstComputer();
 	}
 
-	public void saveBoardCommand(){
+	public void metricsCommand(){
+		// Shows what has been counted so far. Metrics are off unless asked for, so the first time this turns them on.
+		if(!Metrics.isEnabled()){
+			Metrics.setEnabled(true);
+			view.println("Metrics were off and are now being counted. Use m again to see them.");
+			return;
+		}
+		view.print(Metrics.describe());
+	}
 
-		int[][] board = model.getBoard();
-		String[] rows = new String[model.getNrRows()];
-
-		System.out.println("Creating a file...");
-		String filename = view.askForFilename(); // Ask user to choose and create file
-		FileHandling.createFile(filename);
-
-		// Convert the board into a 1D array of Strings where each String is a line
-		// Note that += is causing concatenation of strings, not the addition of numbers
-		for(int r = 0; r < model.getNrRows(); r++){
-			String row = "";
-			for(int c = 0; c < model.getNrCols(); c++){
-				if(board[r][c] == -1){
-					row += 2; // -1 would write two characters to the file, which is problematic, so we write 2 instead
-				} else{
-					row += board[r][c];
-				}
-			}
-			rows[r] = row;
+	public void computerStrategyCommand(){
+		// Choose how the computer picks its moves
+		ComputerPlayer.Strategy[] strategies = ComputerPlayer.Strategy.values();
+		view.println("The computer currently plays with: " + computer.getStrategy());
+		view.println("1: random moves");
+		view.println("2: play a winning move or block a losing one, otherwise random");
+		view.println("3: search ahead (alpha-beta)");
+		view.println("4: Monte Carlo tree search, best for large boards");
+		view.println("5: perfect play (Connect Four on boards up to the standard size, otherwise search ahead)");
+
+		int choice = view.askForNum();
+		while(choice < 1 || choice > strategies.length){
+			view.println("Please enter a number from 1 to " + strategies.length);
+			choice = view.askForNum();
 		}
 
-		// To write all the existing files to validFilesnames, we need an array of all the filenames
-		String[] existingFilenames = FileHandling.readFile("validFilenames", FileHandling.numberOfLinesInFile("validFilenames"));
-		String[] allFilenames = new String[existingFilenames.length + 1];
+		computer.setStrategy(strategies[choice - 1]);
+		view.println("The computer now plays with: " + computer.getStrategy());
+	}
 
-		for(int i = 0; i < existingFilenames.length; i++){
-			allFilenames[i] = existingFilenames[i];
+	private Predicate<SaveCatalog.Entry> chooseSaveFilter(){
+		// With only a few saves they are all listed, otherwise the user can narrow them down first
+		if(catalog.size() <= SAVES_BEFORE_FILTERING){
+			return entry -> true;
 		}
-		allFilenames[allFilenames.length -1] = filename;
 
-		FileHandling.writeToFile(filename, rows); // save the board
-		FileHandling.writeToFile("validFilenames", allFilenames); // save the filenames
+		view.println("There are " + catalog.size() + " saved boards. List all of them (a), those with the current board size and number to win (m), or those with a name containing some text (t)?");
+		char decision = view.askForChar();
+		while(decision != 'a' && decision != 'm' && decision != 't'){
+			view.println("Please enter (a) for all, (m) for matching boards or (t) to search by name");
+			decision = view.askForChar();
+		}
+
+		if(decision == 'm'){
+			return entry -> entry.matches(model);
+		} else if(decision == 't'){
+			view.print("Text to search for: ");
+			String text = view.askForString();
+			return entry -> entry.getName().contains(text);
+		}
+		return entry -> true;
 	}
 
-	public void loadBoardCommand(){
-		int numberOfLines = model.getNrRows();
-		model.setNumberOfPieces(0);
-
-		System.out.println("Loading a file...");
-		System.out.println("Valid files to load: ");
-		String[] filenames = FileHandling.readFile("validFilenames", FileHandling.numberOfLinesInFile("validFilenames"));
-		for(String name : filenames){
-			System.out.println(name);
+	private static String describeSave(SaveCatalog.Entry entry){
+		// e.g. "hyman (6x7 Connect-4, 3 discs, saved 2026-10-18 14:03)"
+		String savedAt = SAVED_AT.format(Instant.ofEpochMilli(entry.getSavedAtMillis()).atZone(ZoneId.systemDefault()));
+		return entry.getName() + " (" + entry.getNrRows() + "x" + entry.getNrCols() + " Connect-" + entry.getNumberToWin()
+				+ ", " + entry.getNumberOfPieces() + " discs, saved " + savedAt + ")";
+	}
+
+	public void solveCommand(){
+		// Works out the result of the current position with perfect play from both sides, and the best column to play
+		if(!Solver.canSolve(model)){
+			view.println("Only Connect Four on boards with (rows + 1) * columns of at most 64 can be solved");
+			return;
+		}
+		if(Solver.isOver(model)){
+			view.println("The game in this position is already over");
+			return;
 		}
-		System.out.println();
 
+		// The computer player's solver is reused, so its table is only allocated once and its time limit applies
+		Solver solver = computer.getSolver();
+		view.println("Solving, for at most " + computer.getSolverTimeLimitMillis() / 1000.0 + " seconds...");
+		long start = System.currentTimeMillis();
+		int col = solver.bestMove(model);
+		long elapsed = System.currentTimeMillis() - start;
+
+		if(col == -1){
+			view.println("The position could not be solved in time, it is too early in the game");
+			return;
+		}
+
+		view.println(Solver.describe(solver.getLastScore(), model));
+		view.println("Best column to play: " + (col + 1));
+		view.println("Solved " + solver.getNodes() + " positions in " + elapsed + " ms");
+	}
+
+	public void saveBoardCommand(){
+
+		view.println("Saving the board...");
 		String filename = view.askForFilename();
 
-		// Go back to main menu when invalid filename is entered.
-		if(!FileHandling.validFilename(filename)){
-			System.out.println("Invalid filename");
+		if(!SaveCatalog.isValidName(filename)){
+			view.println("Filenames cannot be empty, or contain tabs or slashes");
 			return;
 		}
 
-		String[] rows = FileHandling.readFile(filename, numberOfLines);
-		int numberOfPlayerOneDiscs = 0;
-		int numberOfPlayerTwoDiscs = 0;
-
-		// Fill the board back up, using information from the file
-		for(int r = 0; r < model.getNrRows(); r++){
-			String row = rows[r];
-			for(int c = 0; c < model.getNrCols(); c++){
-				char character = row.charAt(c);
-				if(character == '0'){
-					model.setBoard(r, c, Model.emptySpace);
-				} else if (character == '1'){
-					numberOfPlayerOneDiscs++;
-					model.setBoard(r, c,Model.playerOne);
-				} else if (character == '2'){
-					numberOfPlayerTwoDiscs++;
-					model.setBoard(r,c,Model.playerTwo);
-				}
-			}
+		// The catalog is only updated once the board is safely written, so it never lists a save that is not there
+		if(FileHandling.saveBoard(filename, model) && catalog.add(filename, model)){
+			view.println("Board saved as " + filename);
+		}
+	}
+
+	public void loadBoardCommand(){
+		view.println("Loading a file...");
+		view.println("Valid files to load: ");
+		for(SaveCatalog.Entry entry : catalog.list(chooseSaveFilter())){
+			view.println(describeSave(entry));
 		}
+		view.println();
 
-		model.setNumberOfPieces(numberOfPlayerOneDiscs + numberOfPlayerTwoDiscs);
+		String filename = view.askForFilename();
 
-		// In this case its player two's turn. Since model always begins with player one turn
-		// we reverse the turn
-		if(numberOfPlayerOneDiscs > numberOfPlayerTwoDiscs){
-			model.reverseTurn();
+		// Go back to main menu when invalid filename is entered.
+		if(!catalog.contains(filename)){
+			view.println("Invalid filename");
+			return;
 		}
 
-		System.out.println("Board state loaded");
+		// The saved board brings its own dimensions and number to win, and whose turn it is
+		if(!FileHandling.loadBoard(filename, model)){
+			view.println("The file could not be loaded");
+			model.wipeBoard();
+			return;
+		}
 
-		System.out.println("Would you like to load this game against computer (c) or another human (n)?");
-		char decision = InputUtil.readCharFromUser();
+		view.println("Board state loaded");
+
+		view.println("Would you like to load this game against computer (c) or another human (n), or solve it first (v)?");
+		char decision = view.askForChar();
 		while(decision != 'c' && decision != 'n'){
-			System.out.println("Please either enter (c) for computer or (n) for another human?");
-			decision = InputUtil.readCharFromUser();
+			if(decision == 'v'){
+				solveCommand();
+				view.println("Would you like to play this game against computer (c) or another human (n)?");
+			} else {
+				view.println("Please either enter (c) for computer or (n) for another human?");
+			}
+			decision = view.askForChar();
 		}
 
 		if(decision == 'c'){
@@ -0,0 +1,15 @@
+public interface EngineListener
+{
+	// Receives what the computer player has to say about its moves, so the engine itself never prints anything.
+	// The console game prints these messages, while batch runs such as tournaments use NONE and ignore them.
+
+	// Ignores every event, the default for a new ComputerPlayer
+	EngineListener NONE = new EngineListener() {};
+
+	// Called once the computer has chosen its move. report describes how the move was chosen, and is empty
+	// if there is nothing to say, as for a random move.
+	default void moveChosen(int col, String report){}
+
+	// Extra detail about how a move is being chosen, such as the column a random move picked
+	default void diagnostic(String message){}
+}
@@ -0,0 +1,295 @@
+import java.util.Arrays;
+
+public final class Evaluator
+{
+	// Static evaluation of a position, for the search to score positions where neither player has won yet.
+	// It adds up three things, from player one's point of view:
+	//
+	//   windows: every line of numberToWin squares which only one player has discs in, worth more the more discs it has
+	//   threats: empty squares which would complete a line, worth more on the rows which tend to decide the game
+	//            (odd rows for player one and even rows for player two, counting from 1 at the bottom)
+	//   centre:  discs nearer the middle column, which take part in more lines
+	//
+	// Nothing is rescanned when the board changes. Model tells the evaluator about every disc added or removed,
+	// and only the lines through that disc are updated.
+
+	// ===========================================================================
+	// ================================ CONSTANTS ================================
+	// ===========================================================================
+	// Evaluations are kept well clear of NegamaxSearch's win scores
+	public static final int MAX_SCORE = 100_000;
+
+	// Directions a line can run in, as (columns, rows) steps: across, up, and the two diagonals
+	private static final int[] COLUMN_STEP = {1, 0, 1, 1};
+	private static final int[] HEIGHT_STEP = {0, 1, 1, -1};
+
+	private static final byte EMPTY = 0;
+	private static final byte PLAYER_ONE = 1;
+	private static final byte PLAYER_TWO = 2;
+
+	// ========================================================================
+	// ================================ FIELDS ================================
+	// ========================================================================
+	private final int nrRows;
+	private final int nrCols;
+	private final int numberToWin;
+
+	// Squares are numbered col * nrRows + height, with height counted from the bottom of the column
+	private final byte[] cells;
+
+	// Discs of each player in every line (window) of numberToWin squares. A window is numbered by its direction
+	// and the square it starts from: direction * nrCols * nrRows + square.
+	private final short[] playerOneInWindow;
+	private final short[] playerTwoInWindow;
+
+	// Number of windows which each empty square would complete for each player
+	private final short[] playerOneThreats;
+	private final short[] playerTwoThreats;
+
+	// Number of squares that are threats for each player, by whether they are on an odd or even row
+	private int playerOneOddThreats;
+	private int playerOneEvenThreats;
+	private int playerTwoOddThreats;
+	private int playerTwoEvenThreats;
+
+	// Running totals, from player one's point of view
+	private long windowScore;
+	private long centreScore;
+
+	// Value of a window holding n discs of one player and none of the other
+	private final int[] windowWeight;
+	private final int threatWeight;
+
+	// =============================================================================
+	// ================================ CONSTRUCTOR ================================
+	// =============================================================================
+	public Evaluator(int nrRows, int nrCols, int numberToWin){
+		// Starts from an empty board
+		this.nrRows = nrRows;
+		this.nrCols = nrCols;
+		this.numberToWin = numberToWin;
+
+		int squares = nrRows * nrCols;
+		cells = new byte[squares];
+		playerOneInWindow = new short[4 * squares];
+		playerTwoInWindow = new short[4 * squares];
+		playerOneThreats = new short[squares];
+		playerTwoThreats = new short[squares];
+
+		windowWeight = new int[numberToWin + 1];
+		for(int n = 1; n <= numberToWin; n++){
+			windowWeight[n] = n * n;
+		}
+		threatWeight = numberToWin * numberToWin;
+	}
+
+	public Evaluator(Evaluator other){
+		nrRows = other.nrRows;
+		nrCols = other.nrCols;
+		numberToWin = other.numberToWin;
+		cells = other.cells.clone();
+		playerOneInWindow = other.playerOneInWindow.clone();
+		playerTwoInWindow = other.playerTwoInWindow.clone();
+		playerOneThreats = other.playerOneThreats.clone();
+		playerTwoThreats = other.playerTwoThreats.clone();
+		playerOneOddThreats = other.playerOneOddThreats;
+		playerOneEvenThreats = other.playerOneEvenThreats;
+		playerTwoOddThreats = other.playerTwoOddThreats;
+		playerTwoEvenThreats = other.playerTwoEvenThreats;
+		windowScore = other.windowScore;
+		centreScore = other.centreScore;
+		windowWeight = other.windowWeight;
+		threatWeight = other.threatWeight;
+	}
+
+	public boolean hasShape(int nrRows, int nrCols, int numberToWin){
+		return this.nrRows == nrRows && this.nrCols == nrCols && this.numberToWin == numberToWin;
+	}
+
+	public void copyFrom(Evaluator other){
+		// Turns this evaluator into a copy of another one for the same board shape, reusing its arrays
+		System.arraycopy(other.cells, 0, cells, 0, cells.length);
+		System.arraycopy(other.playerOneInWindow, 0, playerOneInWindow, 0, playerOneInWindow.length);
+		System.arraycopy(other.playerTwoInWindow, 0, playerTwoInWindow, 0, playerTwoInWindow.length);
+		System.arraycopy(other.playerOneThreats, 0, playerOneThreats, 0, playerOneThreats.length);
+		System.arraycopy(other.playerTwoThreats, 0, playerTwoThreats, 0, playerTwoThreats.length);
+		playerOneOddThreats = other.playerOneOddThreats;
+		playerOneEvenThreats = other.playerOneEvenThreats;
+		playerTwoOddThreats = other.playerTwoOddThreats;
+		playerTwoEvenThreats = other.playerTwoEvenThreats;
+		windowScore = other.windowScore;
+		centreScore = other.centreScore;
+	}
+
+	public void clear(){
+		// Back to an empty board, reusing the arrays
+		Arrays.fill(cells, EMPTY);
+		Arrays.fill(playerOneInWindow, (short) 0);
+		Arrays.fill(playerTwoInWindow, (short) 0);
+		Arrays.fill(playerOneThreats, (short) 0);
+		Arrays.fill(playerTwoThreats, (short) 0);
+		playerOneOddThreats = 0;
+		playerOneEvenThreats = 0;
+		playerTwoOddThreats = 0;
+		playerTwoEvenThreats = 0;
+		windowScore = 0;
+		centreScore = 0;
+	}
+
+	// ========================================================================
+	// ================================ SCORE =================================
+	// ========================================================================
+	public int score(){
+		// The evaluation from player one's point of view, positive when player one is better off
+		long threats = threatWeight * (2L * playerOneOddThreats + playerOneEvenThreats - 2L * playerTwoEvenThreats - playerTwoOddThreats);
+		long score = windowScore + threats + centreScore;
+		return (int) Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score));
+	}
+
+	// ========================================================================
+	// ================================ UPDATES ===============================
+	// ========================================================================
+	public void place(int col, int height, boolean playerOnePiece){
+		// A disc has been added at the square. The square is marked first, so a line which becomes a threat can find
+		// its one remaining empty square.
+		int square = col * nrRows + height;
+		cells[square] = playerOnePiece ? PLAYER_ONE : PLAYER_TWO;
+		centreScore += playerOnePiece ? centreWeight(col) : -centreWeight(col);
+		updateWindows(col, height, playerOnePiece, 1);
+	}
+
+	public void remove(int col, int height){
+		// A disc has been taken off the square. The square is only emptied afterwards, for the same reason as in place.
+		int square = col * nrRows + height;
+		byte owner = cells[square];
+		if(owner == EMPTY){
+			return;
+		}
+
+		boolean playerOnePiece = owner == PLAYER_ONE;
+		centreScore -= playerOnePiece ? centreWeight(col) : -centreWeight(col);
+		updateWindows(col, height, playerOnePiece, -1);
+		cells[square] = EMPTY;
+	}
+
+	private void updateWindows(int col, int height, boolean playerOnePiece, int change){
+		// Visits every window of numberToWin squares which contains the square
+		int k = numberToWin;
+		for(int direction = 0; direction < 4; direction++){
+			int columnStep = COLUMN_STEP[direction];
+			int heightStep = HEIGHT_STEP[direction];
+
+			for(int i = 0; i < k; i++){
+				int startCol = col - i * columnStep;
+				int startHeight = height - i * heightStep;
+				int endCol = startCol + (k - 1) * columnStep;
+				int endHeight = startHeight + (k - 1) * heightStep;
+
+				if(startCol < 0 || endCol >= nrCols || startHeight < 0 || startHeight >= nrRows || endHeight < 0 || endHeight >= nrRows){
+					continue;
+				}
+
+				int window = (direction * nrCols + startCol) * nrRows + startHeight;
+				updateWindow(window, startCol, startHeight, columnStep, heightStep, col * nrRows + height, playerOnePiece, change);
+			}
+		}
+	}
+
+	private void updateWindow(int window, int startCol, int startHeight, int columnStep, int heightStep,
+							  int square, boolean playerOnePiece, int change){
+		int one = playerOneInWindow[window];
+		int two = playerTwoInWindow[window];
+		int before = windowValue(one, two);
+		int threatBefore = threatOwner(one, two);
+
+		if(playerOnePiece){
+			one += change;
+			playerOneInWindow[window] = (short) one;
+		} else {
+			two += change;
+			playerTwoInWindow[window] = (short) two;
+		}
+
+		windowScore += windowValue(one, two) - before;
+
+		// A window with one square left to fill is a threat on that square. When a disc is added, a threat before the
+		// change can only have been on the square just filled, and a threat after it must be found by looking.
+		// Removing a disc is the other way around.
+		int threatAfter = threatOwner(one, two);
+		if(threatBefore != EMPTY){
+			int threatSquare = change > 0 ? square : emptySquare(startCol, startHeight, columnStep, heightStep);
+			addThreat(threatSquare, threatBefore, -1);
+		}
+		if(threatAfter != EMPTY){
+			int threatSquare = change > 0 ? emptySquare(startCol, startHeight, columnStep, heightStep) : square;
+			addThreat(threatSquare, threatAfter, 1);
+		}
+	}
+
+	private int windowValue(int one, int two){
+		// A window with discs from both players can never be completed, so it is worth nothing to either
+		if(two == 0){
+			return windowWeight[one];
+		}
+		if(one == 0){
+			return -windowWeight[two];
+		}
+		return 0;
+	}
+
+	private int threatOwner(int one, int two){
+		if(one == numberToWin - 1 && two == 0){
+			return PLAYER_ONE;
+		}
+		if(two == numberToWin - 1 && one == 0){
+			return PLAYER_TWO;
+		}
+		return EMPTY;
+	}
+
+	private int emptySquare(int startCol, int startHeight, int columnStep, int heightStep){
+		for(int i = 0; i < numberToWin; i++){
+			int square = (startCol + i * columnStep) * nrRows + startHeight + i * heightStep;
+			if(cells[square] == EMPTY){
+				return square;
+			}
+		}
+		throw new IllegalStateException("A threat window has no empty square");
+	}
+
+	private void addThreat(int square, int owner, int change){
+		// Squares are only counted once however many windows they complete
+		short[] threats = owner == PLAYER_ONE ? playerOneThreats : playerTwoThreats;
+		int before = threats[square];
+		threats[square] = (short) (before + change);
+
+		int squareChange = before == 0 ? 1 : before + change == 0 ? -1 : 0;
+		if(squareChange == 0){
+			return;
+		}
+
+		// Height 0 is the bottom row, which is row 1 and so odd
+		boolean oddRow = (square % nrRows) % 2 == 0;
+		if(owner == PLAYER_ONE){
+			if(oddRow){playerOneOddThreats += squareChange;} else {playerOneEvenThreats += squareChange;}
+		} else {
+			if(oddRow){playerTwoOddThreats += squareChange;} else {playerTwoEvenThreats += squareChange;}
+		}
+	}
+
+	private int centreWeight(int col){
+		// 0 for the edge columns, rising by one per column towards the middle
+		return Math.min(col, nrCols - 1 - col);
+	}
+
+	// =========================================================================
+	// ================================ GETTERS ================================
+	// =========================================================================
+	public int getThreatSquares(boolean playerOne, boolean oddRows){
+		// Number of empty squares which would complete a line for the player, on odd or even rows (counting from 1)
+		if(playerOne){
+			return oddRows ? playerOneOddThreats : playerOneEvenThreats;
+		}
+		return oddRows ? playerTwoOddThreats : playerTwoEvenThreats;
+	}
+}
@@ -1,104 +1,294 @@
-import java.io.File;                   // Import the File class
-import java.io.FileWriter;             // Import the FileWriter class
 import java.io.IOException;            // Import the IOException class to handle errors
-import java.io.FileNotFoundException;  // Import this class to handle errors
-import java.util.Scanner;              // Import the Scanner class to read text files
+import java.util.List;
+import java.nio.ByteBuffer;            // Binary saves are built in a buffer and written with one call
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 public class FileHandling {
 
-    public static void createFile(String filename){
+    // Boards are saved in a compact binary format, as "<filename>.c4" in the savedBoards folder:
+    //
+    //   header: magic "C4SV" | version (byte) | flags (byte) | rows | cols | numberToWin | number of pieces   (22 bytes)
+    //   body:   either the moves played, one short per move, or every cell packed into 2 bits, row by row from the top
+    //
+    // Bit 0 of flags is set if player one is to move, and bit 1 if the body is the list of moves.
+    // Text saves from older versions, with a line of 0, 1 and 2 characters per row, can still be loaded.
 
-        // Creates a file called "<filename>.txt" and places it in the savedBoards folder
+    public static final String DIRECTORY = "savedBoards";
+    public static final String BINARY_EXTENSION = ".c4";
 
+    private static final int MAGIC = 0x43345356; // "C4SV"
+    private static final byte VERSION = 1;
+    private static final int HEADER_BYTES = 22;
+
+    private static final int PLAYER_ONE_TO_MOVE = 1;
+    private static final int MOVE_LIST = 2;
+
+    // 2 bit codes for each cell of the packed board
+    private static final int EMPTY_CELL = 0;
+    private static final int PLAYER_ONE_CELL = 1;
+    private static final int PLAYER_TWO_CELL = 2;
+
+    public static String[] readLines(String filename){
+        return readLines(Paths.get(DIRECTORY), filename);
+    }
+
+    public static String[] readLines(Path directory, String filename){
+        // Reads every line of "<filename>.txt" in one pass, rather than counting the lines first and then reading them
         try {
-            // Use a file seperator since path notation is inconsistent across platforms
-            File f = new File("savedBoards" + File.separator + filename + ".txt");
-
-            if (f.createNewFile()) {
-                System.out.println("File created: " + f.getName());
-                System.out.println("Absolute path: " + f.getAbsolutePath());
-            } else {
-                System.out.println("File already exists.");
-            }
+            List<String> lines = Files.readAllLines(directory.resolve(filename + ".txt"), StandardCharsets.UTF_8);
+            return lines.toArray(new String[0]);
         } catch (IOException e) {
-            // This occurs if the file could not be created for some reason
             System.out.println("An error occurred.");
             e.printStackTrace();
+            return new String[0];
         }
     }
 
-    public static void writeToFile(String filename, String[] input){
-        // writes to a file "<filename>.txt" within the savedBoards folder, with a String array as input
-        try {
+    // Binary saves
 
-            FileWriter myWriter = new FileWriter("savedBoards" + File.separator + filename + ".txt");
+    public static boolean saveBoard(String filename, Model model){
+        return saveBoard(Paths.get(DIRECTORY), filename, model);
+    }
 
-            // Write each line and then take a new line
-            for(String line : input){
-                myWriter.write(line);
-                myWriter.write("\n");
+    public static boolean saveBoard(Path directory, String filename, Model model){
+        // Saves the board as "<filename>.c4" with a single write, returning false if it could not be written
+        long start = Metrics.SAVE_BOARD.start();
+        ByteBuffer buffer = encodeBoard(model);
+        Path path = directory.resolve(filename + BINARY_EXTENSION);
 
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            // A file channel writes the whole buffer at once, the loop only guards against a short write
+            while(buffer.hasRemaining()){
+                channel.write(buffer);
             }
-            myWriter.close();
-            System.out.println("Successfully wrote to the file.");
-
+            return true;
         } catch (IOException e) {
+            Metrics.FILE_ERRORS.increment();
             System.out.println("An error occurred.");
             e.printStackTrace();
+            return false;
+        } finally {
+            Metrics.SAVE_BOARD.stop(start);
         }
     }
 
-    public static String[] readFile(String filename, int numberOfLines){
-        String[] output = new String[numberOfLines];
+    public static boolean loadBoard(String filename, Model model){
+        return loadBoard(Paths.get(DIRECTORY), filename, model);
+    }
+
+    public static boolean loadBoard(Path directory, String filename, Model model){
+        // Loads a saved board into the model, along with its size and number to win. A binary save is read with a
+        // single read, otherwise "<filename>.txt" is read as an older text save. Returns false if neither can be loaded.
+        long start = Metrics.LOAD_BOARD.start();
+        Path binary = directory.resolve(filename + BINARY_EXTENSION);
+
         try {
-            File myObj = new File("savedBoards" + File.separator + filename + ".txt");
-            Scanner myReader = new Scanner(myObj);
-
-            int i = 0;
-            while (myReader.hasNextLine()) {
-                String data = myReader.nextLine(); // read the line
-                output[i] = data; // save the data
-                i++; // increment line counter
+            // Opening the file straight away saves checking whether it exists first
+            try (FileChannel channel = FileChannel.open(binary, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if(size > Integer.MAX_VALUE){
+                    return false;
+                }
+
+                ByteBuffer buffer = ByteBuffer.allocate((int) size);
+                while(buffer.hasRemaining() && channel.read(buffer) >= 0){
+                    // Keep reading until the buffer is full or the file ends
+                }
+                buffer.flip();
+                return decodeBoard(buffer, model);
+            } catch (NoSuchFileException e) {
+                // Not a binary save, so try the text format below
             }
 
-            myReader.close();
-        } catch (FileNotFoundException e) {
+            Path text = directory.resolve(filename + ".txt");
+            return Files.isRegularFile(text) && decodeTextBoard(Files.readAllLines(text, StandardCharsets.UTF_8), model);
+        } catch (IOException e) {
+            Metrics.FILE_ERRORS.increment();
             System.out.println("An error occurred.");
             e.printStackTrace();
+            return false;
+        } finally {
+            Metrics.LOAD_BOARD.stop(start);
+        }
+    }
+
+    public static ByteBuffer encodeBoard(Model model){
+        // Builds a binary save of the board, ready to be written
+        int rows = model.getNrRows();
+        int cols = model.getNrCols();
+        int pieces = model.getNumberOfPieces();
+
+        // A game played from an empty board can be saved as its moves, which is smaller until the board is half full.
+        // A loaded board has no record of how its discs got there, so it is always saved cell by cell.
+        boolean moveList = model.getPly() == pieces && cols <= Short.MAX_VALUE && pieces * Short.BYTES <= cellBytes(rows, cols);
+        int bodyBytes = moveList ? pieces * Short.BYTES : cellBytes(rows, cols);
+        int flags = (model.getTurn() ? PLAYER_ONE_TO_MOVE : 0) | (moveList ? MOVE_LIST : 0);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + bodyBytes);
+        buffer.putInt(MAGIC).put(VERSION).put((byte) flags)
+                .putInt(rows).putInt(cols).putInt(model.getNumberToWin()).putInt(pieces);
+
+        if(moveList){
+            for(int col : model.getMoveHistory()){
+                buffer.putShort((short) col);
+            }
+        } else {
+            // Four cells to a byte, the first cell in the lowest two bits
+            int packed = 0;
+            int cellsInByte = 0;
+            for(int[] row : model.getBoard()){
+                for(int cell : row){
+                    int code = cell == Model.playerOne ? PLAYER_ONE_CELL : cell == Model.playerTwo ? PLAYER_TWO_CELL : EMPTY_CELL;
+                    packed |= code << (2 * cellsInByte);
+                    if(++cellsInByte == 4){
+                        buffer.put((byte) packed);
+                        packed = 0;
+                        cellsInByte = 0;
+                    }
+                }
+            }
+            if(cellsInByte > 0){
+                buffer.put((byte) packed);
+            }
         }
 
-        return output;
+        buffer.flip();
+        return buffer;
     }
 
-    public static int numberOfLinesInFile(String filename){
-        // naive way to find the number of lines in a file
-        try {
-            File myObj = new File("savedBoards" + File.separator + filename + ".txt");
-            Scanner myReader = new Scanner(myObj);
+    public static boolean decodeBoard(ByteBuffer buffer, Model model){
+        // Sets the model up from a binary save, returning false if the buffer does not hold a valid one
+        if(buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.get() != VERSION){
+            return false;
+        }
+
+        int flags = buffer.get();
+        int rows = buffer.getInt();
+        int cols = buffer.getInt();
+        int numberToWin = buffer.getInt();
+        int pieces = buffer.getInt();
+        boolean moveList = (flags & MOVE_LIST) != 0;
+
+        if(!Model.isValidSize(rows, cols) || pieces < 0 || pieces > rows * cols){
+            return false;
+        }
+        // A line must be at least two discs long and fit on the board one way or another
+        if(numberToWin < 2 || numberToWin > Math.max(rows, cols)){
+            return false;
+        }
+        if(buffer.remaining() != (moveList ? (long) pieces * Short.BYTES : cellBytes(rows, cols))){
+            return false;
+        }
 
-            int numberOfLines = 0;
-            while (myReader.hasNextLine()) {
-                String data = myReader.nextLine(); // read the line
-                numberOfLines++; // increment line counter
+        model.setRows(rows);
+        model.setCols(cols);
+        model.setNumberToWin(numberToWin);
+        model.wipeBoard();
+
+        if(moveList){
+            // Replaying the moves also restores the move history, so they can be taken back after loading
+            for(int i = 0; i < pieces; i++){
+                int col = buffer.getShort();
+                if(!model.isMoveValid(col)){
+                    model.wipeBoard();
+                    return false;
+                }
+                model.makeMove(col);
+            }
+        } else {
+            int discs = 0;
+            int packed = 0;
+            int cell = 0;
+            for(int r = 0; r < rows; r++){
+                for(int c = 0; c < cols; c++, cell++){
+                    if((cell & 3) == 0){
+                        packed = buffer.get();
+                    }
+                    int code = (packed >>> (2 * (cell & 3))) & 3;
+                    // The board starts empty, so only the discs need writing
+                    if(code == PLAYER_ONE_CELL){
+                        model.setBoard(r, c, Model.playerOne);
+                        discs++;
+                    } else if(code == PLAYER_TWO_CELL){
+                        model.setBoard(r, c, Model.playerTwo);
+                        discs++;
+                    }
+                }
             }
+            model.setNumberOfPieces(discs);
+        }
 
-            myReader.close();
-            return numberOfLines;
-        } catch (FileNotFoundException e) {
-            System.out.println("An error occurred.");
-            e.printStackTrace();
+        boolean playerOneToMove = (flags & PLAYER_ONE_TO_MOVE) != 0;
+        if(model.getTurn() != playerOneToMove){
+            model.reverseTurn();
         }
-        return -1;
+        return true;
     }
 
-    public static boolean validFilename(String filename){
-        String[] filenames = readFile("validFilenames", numberOfLinesInFile("validFilenames"));
-        for(String name : filenames){
-            if(name.equals(filename)){
-                return true;
+    public static boolean decodeTextBoard(List<String> lines, Model model){
+        // Sets the model up from an older text save, with one line per row. The board takes its size from the file,
+        // and the side to move is worked out from the number of discs each player has.
+        while(!lines.isEmpty() && lines.get(lines.size() - 1).isEmpty()){
+            lines = lines.subList(0, lines.size() - 1);
+        }
+        if(lines.isEmpty()){
+            return false;
+        }
+
+        int rows = lines.size();
+        int cols = lines.get(0).length();
+        if(!Model.isValidSize(rows, cols)){
+            return false;
+        }
+        for(String line : lines){
+            if(line.length() != cols){
+                return false;
             }
         }
-        return false;
 
+        model.setRows(rows);
+        model.setCols(cols);
+        // Text saves do not record the number to win, so keep the current one if it still fits on the board
+        model.setNumberToWin(Math.min(model.getNumberToWin(), Math.min(rows, cols)));
+        model.wipeBoard();
+
+        int numberOfPlayerOneDiscs = 0;
+        int numberOfPlayerTwoDiscs = 0;
+        for(int r = 0; r < rows; r++){
+            String row = lines.get(r);
+            for(int c = 0; c < cols; c++){
+                char character = row.charAt(c);
+                if(character == '1'){
+                    numberOfPlayerOneDiscs++;
+                    model.setBoard(r, c, Model.playerOne);
+                } else if(character == '2'){
+                    numberOfPlayerTwoDiscs++;
+                    model.setBoard(r, c, Model.playerTwo);
+                } else if(character != '0'){
+                    model.wipeBoard();
+                    return false;
+                }
+            }
+        }
+
+        model.setNumberOfPieces(numberOfPlayerOneDiscs + numberOfPlayerTwoDiscs);
+
+        // Player one always moves first, so it's player two's turn if player one has more discs
+        if(numberOfPlayerOneDiscs > numberOfPlayerTwoDiscs){
+            model.reverseTurn();
+        }
+        return true;
+    }
+
+    private static int cellBytes(int rows, int cols){
+        // Bytes needed to pack every cell of the board, four to a byte
+        return (int) (((long) rows * cols + 3) / 4);
     }
 }
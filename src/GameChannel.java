@@ -0,0 +1,20 @@
+public interface GameChannel
+{
+	// Where a session's input comes from and its output goes to. The console game uses standard input and output,
+	// while a SessionManager gives every game its own channel, such as a socket or an in-process queue.
+
+	// Waits for the next line the player types, without the line ending. Returns null once the player has gone,
+	// e.g. at the end of standard input or when the other end of a socket is closed.
+	// Anything printed so far is sent before waiting, so the player always sees the question they are answering.
+	String readLine();
+
+	// Output may be held back until the next readLine or close
+	void print(String text);
+
+	default void println(String text){
+		print(text + "\n");
+	}
+
+	// Sends anything still held back and lets the other side know the session is over
+	void close();
+}
@@ -1,9 +1,7 @@
-import java.util.Scanner;
+import java.util.NoSuchElementException;
 
 public final class InputUtil
 {
-	private static final Scanner sc = new Scanner(System.in);
-	
 	// A private constructor prevents other code from instantiating
 	// a class that is meant to be used in a static context.
 	private InputUtil()
@@ -12,73 +10,85 @@ public final class InputUtil
 	}
 
 	/**
-	 * Waits for the user to type an integer on standard input.
+	 * Waits for the user to type an integer on the channel.
 	 * The integer they entered is returned when they press enter.
 	 * If the input is not an integer, the user is asked to try again.
 	 *
+	 * @param channel The channel the user types on.
 	 * @return An integer entered by the user.
+	 * @throws NoSuchElementException If the user has gone before entering one.
 	 */
-	public static int readIntFromUser()
+	public static int readIntFromUser(GameChannel channel)
 	{
 		// At least once and until valid input is received:
 		do
 		{
-			// Wait for new input and check if it is an integer.
-			if(sc.hasNextInt())
+			// Wait for new input. Blank lines are skipped, as if the user had not typed anything yet.
+			String input = readLine(channel).trim();
+			if(input.isEmpty())
+				continue;
+
+			// Only the first word counts, the rest of the line (if any) is ignored.
+			String word = input.split("\\s+", 2)[0];
+			try
+			{
+				return Integer.parseInt(word);
+			}
+			catch(NumberFormatException e)
 			{
-				// Obtain the integer value and return it after
-				// consuming the rest of the input line (if any).
-				int input = sc.nextInt();
-				sc.nextLine();
-				return input;
+				// The input was not an integer, print an error and repeat.
+				channel.print("Please enter an integer: ");
 			}
-			
-			// The input was not an integer, print an error and repeat.
-			System.out.print("Please enter an integer: ");
-			
-			// Consume the rest of the line.
-			sc.nextLine();
 		}
 		while(true);
 	}
-	
+
 	/**
-	 * Waits for the user to type a single character on standard input.
+	 * Waits for the user to type a single character on the channel.
 	 * The character they entered is returned when they press enter.
 	 * If the input is not a single char, the user is asked to try again.
 	 *
+	 * @param channel The channel the user types on.
 	 * @return A single char entered by the user.
+	 * @throws NoSuchElementException If the user has gone before entering one.
 	 */
-	public static char readCharFromUser()
+	public static char readCharFromUser(GameChannel channel)
 	{
 		// At least once and until valid input is received:
 		do
 		{
-			// Wait for a new line of text to be entered.
-			if(sc.hasNextLine())
-			{
-				// Obtain the user input.
-				String input = sc.nextLine();
-				
-				// If a single char was entered, return it.
-				if(input.length() == 1)
-					return input.charAt(0);
-			}
-			
+			// Obtain the user input.
+			String input = readLine(channel);
+
+			// If a single char was entered, return it.
+			if(input.length() == 1)
+				return input.charAt(0);
+
 			// Invalid input length, print an error and repeat.
-			System.out.print("Please enter a single character: ");
+			channel.print("Please enter a single character: ");
 		}
 		while(true);
 	}
-	
+
 	/**
-	 * Waits for the user to type on standard input.
+	 * Waits for the user to type on the channel.
 	 * The String they entered is returned when they press enter.
 	 *
+	 * @param channel The channel the user types on.
 	 * @return A String entered by the user.
+	 * @throws NoSuchElementException If the user has gone before entering one.
 	 */
-	public static String readStringFromUser()
+	public static String readStringFromUser(GameChannel channel)
+	{
+		return readLine(channel);
+	}
+
+	private static String readLine(GameChannel channel)
 	{
-		return sc.nextLine();
+		// Ends the session the same way reading past the end of standard input always has
+		String line = channel.readLine();
+		if(line == null)
+			throw new NoSuchElementException("The player has left");
+		return line;
 	}
 }
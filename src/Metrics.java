@@ -0,0 +1,331 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class Metrics
+{
+	// Counts how often the busiest parts of the game run and how long the slower ones take, e.g. how many moves the
+	// computer tried while searching, or how long saving a board took.
+	//
+	// Counters and histograms are built on LongAdder, which spreads concurrent updates over several cells, so
+	// thousands of sessions (or the threads of a parallel search) can count at once without fighting over one value.
+	// Histograms have fixed buckets, so recording a time never allocates.
+	//
+	// Metrics are off unless the game is started with -Dconnectfour.metrics=true, or turned on with the `m` command.
+	// While off, every counter and timer returns after reading one static field, so the search runs at full speed.
+	// With -Dconnectfour.metrics.file=<file>, a snapshot in the Prometheus text format is written to the file every
+	// 15 seconds (-Dconnectfour.metrics.seconds), replacing the previous one in a single step.
+
+	// ===========================================================================
+	// ================================ CONSTANTS ================================
+	// ===========================================================================
+	public static final String ENABLED_PROPERTY = "connectfour.metrics";
+	public static final String FILE_PROPERTY = "connectfour.metrics.file";
+	public static final String PERIOD_PROPERTY = "connectfour.metrics.seconds";
+	public static final long DEFAULT_PERIOD_SECONDS = 15;
+
+	// Upper bounds of the histogram buckets, from 1 microsecond to 10 seconds, with one more bucket for anything longer
+	private static final long[] BUCKET_NANOS = {
+			1_000L, 5_000L, 10_000L, 50_000L, 100_000L, 500_000L,
+			1_000_000L, 5_000_000L, 10_000_000L, 50_000_000L, 100_000_000L, 500_000_000L,
+			1_000_000_000L, 5_000_000_000L, 10_000_000_000L
+	};
+
+	// ========================================================================
+	// ================================ TYPES =================================
+	// ========================================================================
+	public static final class Counter
+	{
+		private final String name;
+		private final String help;
+		private final LongAdder count = new LongAdder();
+
+		private Counter(String name, String help){
+			this.name = name;
+			this.help = help;
+		}
+
+		public void increment(){
+			if(enabled){
+				count.increment();
+			}
+		}
+
+		public long get(){ return count.sum(); }
+	}
+
+	public static final class Histogram
+	{
+		private final String name;
+		private final String help;
+		private final LongAdder[] buckets = new LongAdder[BUCKET_NANOS.length + 1];
+		private final LongAdder totalNanos = new LongAdder();
+
+		private Histogram(String name, String help){
+			this.name = name;
+			this.help = help;
+			for(int i = 0; i < buckets.length; i++){
+				buckets[i] = new LongAdder();
+			}
+		}
+
+		public long start(){
+			// Returns 0 while metrics are off, which stop then ignores
+			return enabled ? System.nanoTime() : 0;
+		}
+
+		public void stop(long start){
+			if(start != 0){
+				record(System.nanoTime() - start);
+			}
+		}
+
+		public void record(long nanos){
+			int bucket = 0;
+			while(bucket < BUCKET_NANOS.length && nanos > BUCKET_NANOS[bucket]){
+				bucket++;
+			}
+			buckets[bucket].increment();
+			totalNanos.add(nanos);
+		}
+
+		public long getCount(){
+			long count = 0;
+			for(LongAdder bucket : buckets){
+				count += bucket.sum();
+			}
+			return count;
+		}
+
+		public double getTotalSeconds(){ return totalNanos.sum() / 1e9; }
+
+		public double quantileSeconds(double fraction){
+			// An upper bound on the time this fraction of the recordings took, from the bucket it falls in.
+			// Anything beyond the last bucket is reported as the last bound.
+			long[] counts = new long[buckets.length];
+			long count = 0;
+			for(int i = 0; i < buckets.length; i++){
+				counts[i] = buckets[i].sum();
+				count += counts[i];
+			}
+			if(count == 0){
+				return 0;
+			}
+
+			long target = Math.max(1, (long) Math.ceil(fraction * count));
+			long seen = 0;
+			for(int i = 0; i < BUCKET_NANOS.length; i++){
+				seen += counts[i];
+				if(seen >= target){
+					return BUCKET_NANOS[i] / 1e9;
+				}
+			}
+			return BUCKET_NANOS[BUCKET_NANOS.length - 1] / 1e9;
+		}
+	}
+
+	// ========================================================================
+	// ================================ FIELDS ================================
+	// ========================================================================
+	// Not volatile: a thread may take a moment to see it change, which costs a few counts at most, while reading it
+	// in the hottest methods of Model costs next to nothing
+	private static boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+
+	private static final List<Counter> COUNTERS = new ArrayList<>();
+	private static final List<Histogram> HISTOGRAMS = new ArrayList<>();
+
+	private static ScheduledExecutorService fileWriter;
+	private static Path metricsFile;
+	private static boolean writesOnExit;
+
+	// ========================================================================
+	// ================================ METRICS ===============================
+	// ========================================================================
+	// Model
+	public static final Counter MAKE_MOVE = counter("connectfour_model_make_move_total", "Discs played by Model.makeMove, including those tried by searches");
+	public static final Counter UNDO_MOVE = counter("connectfour_model_undo_move_total", "Discs taken back by Model.undoMove");
+	public static final Counter IS_GAME_WON = counter("connectfour_model_is_game_won_total", "Calls to Model.isGameWon");
+
+	// ComputerPlayer
+	public static final Histogram COMPUTE_MOVE = histogram("connectfour_computer_move_seconds", "Time the computer took to choose a move, with any strategy");
+	public static final Histogram PLAY_FOR_WIN = histogram("connectfour_computer_play_for_win_seconds", "Time taken by ComputerPlayer.playForWin");
+
+	// FileHandling
+	public static final Histogram SAVE_BOARD = histogram("connectfour_file_save_seconds", "Time taken to save a board");
+	public static final Histogram LOAD_BOARD = histogram("connectfour_file_load_seconds", "Time taken to load a board, whether or not it could be loaded");
+	public static final Counter FILE_ERRORS = counter("connectfour_file_errors_total", "Saves and loads which failed with an I/O error");
+
+	// Controller
+	public static final Counter GAMES_STARTED = counter("connectfour_games_started_total", "Games started, against a person or the computer");
+	public static final Counter GAMES_WON = counter("connectfour_games_won_total", "Games which ended with a win");
+	public static final Counter GAMES_DRAWN = counter("connectfour_games_drawn_total", "Games which ended with a full board");
+	public static final Histogram PLAYER_MOVE = histogram("connectfour_player_move_seconds", "Time players took to enter a valid move");
+
+	private Metrics()
+	{
+		// Nothing to do!
+	}
+
+	private static Counter counter(String name, String help){
+		Counter counter = new Counter(name, help);
+		COUNTERS.add(counter);
+		return counter;
+	}
+
+	private static Histogram histogram(String name, String help){
+		Histogram histogram = new Histogram(name, help);
+		HISTOGRAMS.add(histogram);
+		return histogram;
+	}
+
+	// ========================================================================
+	// ================================ SWITCHING =============================
+	// ========================================================================
+	public static boolean isEnabled(){ return enabled; }
+
+	public static void setEnabled(boolean on){ enabled = on; }
+
+	public static synchronized void startFromSystemProperties(){
+		// Starts writing the metrics file if -Dconnectfour.metrics.file is set, which also turns metrics on
+		String file = System.getProperty(FILE_PROPERTY);
+		if(file == null || file.isEmpty() || fileWriter != null){
+			return;
+		}
+		long period = Long.getLong(PERIOD_PROPERTY, DEFAULT_PERIOD_SECONDS);
+		writePeriodically(Paths.get(file), Math.max(1, period));
+	}
+
+	public static synchronized void writePeriodically(Path file, long periodSeconds){
+		// Writes a snapshot to the file straight away, then every period on a background thread, and once more when
+		// the JVM exits so short runs such as a tournament leave their final counts behind
+		enabled = true;
+		if(fileWriter != null){
+			fileWriter.shutdownNow();
+		}
+		metricsFile = file;
+		if(!writesOnExit){
+			writesOnExit = true;
+			Runtime.getRuntime().addShutdownHook(new Thread(Metrics::writeOnExit, "metrics-exit"));
+		}
+		fileWriter = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "metrics-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		fileWriter.scheduleAtFixedRate(() -> {
+			try {
+				writeFile(file);
+			} catch (IOException e) {
+				System.out.println("Could not write metrics to " + file + ": " + e.getMessage());
+			}
+		}, 0, periodSeconds, TimeUnit.SECONDS);
+	}
+
+	public static synchronized void stopWriting(){
+		if(fileWriter != null){
+			fileWriter.shutdownNow();
+			fileWriter = null;
+		}
+		metricsFile = null;
+	}
+
+	private static synchronized void writeOnExit(){
+		if(metricsFile == null){
+			return;
+		}
+		try {
+			writeFile(metricsFile);
+		} catch (IOException e) {
+			// Nobody is left to tell
+		}
+	}
+
+	// ========================================================================
+	// ================================ SNAPSHOTS =============================
+	// ========================================================================
+	public static String describe(){
+		// A short summary for people, one line per metric
+		StringBuilder text = new StringBuilder();
+		for(Counter counter : COUNTERS){
+			text.append(counter.name).append(' ').append(counter.get()).append('\n');
+		}
+		for(Histogram histogram : HISTOGRAMS){
+			long count = histogram.getCount();
+			text.append(histogram.name).append(' ').append(count);
+			if(count > 0){
+				text.append(String.format(Locale.ROOT, " (average %.3f ms, 50%% under %s, 99%% under %s)",
+						1000 * histogram.getTotalSeconds() / count,
+						describeSeconds(histogram.quantileSeconds(0.5)), describeSeconds(histogram.quantileSeconds(0.99))));
+			}
+			text.append('\n');
+		}
+		return text.toString();
+	}
+
+	private static String describeSeconds(double seconds){
+		if(seconds < 1e-3){
+			return Math.round(seconds * 1e6) + " us";
+		}
+		if(seconds < 1){
+			return Math.round(seconds * 1e3) + " ms";
+		}
+		return Math.round(seconds) + " s";
+	}
+
+	public static void writePrometheus(Writer out) throws IOException {
+		// The Prometheus text format, with times in seconds and each histogram's buckets counting everything up to
+		// their bound
+		for(Counter counter : COUNTERS){
+			out.write("# HELP " + counter.name + " " + counter.help + "\n");
+			out.write("# TYPE " + counter.name + " counter\n");
+			out.write(counter.name + " " + counter.get() + "\n");
+		}
+		for(Histogram histogram : HISTOGRAMS){
+			out.write("# HELP " + histogram.name + " " + histogram.help + "\n");
+			out.write("# TYPE " + histogram.name + " histogram\n");
+
+			long cumulative = 0;
+			for(int i = 0; i < histogram.buckets.length; i++){
+				cumulative += histogram.buckets[i].sum();
+				String bound = i < BUCKET_NANOS.length ? Double.toString(BUCKET_NANOS[i] / 1e9) : "+Inf";
+				out.write(histogram.name + "_bucket{le=\"" + bound + "\"} " + cumulative + "\n");
+			}
+			out.write(histogram.name + "_sum " + histogram.getTotalSeconds() + "\n");
+			out.write(histogram.name + "_count " + cumulative + "\n");
+		}
+	}
+
+	public static void writeFile(Path file) throws IOException {
+		// Written next to the file and then moved over it, so a reader never sees half a snapshot
+		Path absolute = file.toAbsolutePath();
+		Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+		try (Writer out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+			writePrometheus(out);
+		}
+		Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	public static void reset(){
+		// Sets everything back to zero, e.g. between benchmark runs. Counts made at the same time may be lost.
+		for(Counter counter : COUNTERS){
+			counter.count.reset();
+		}
+		for(Histogram histogram : HISTOGRAMS){
+			for(LongAdder bucket : histogram.buckets){
+				bucket.reset();
+			}
+			histogram.totalNanos.reset();
+		}
+	}
+}
@@ -1,3 +1,5 @@
+import java.util.Arrays;
+
 public final class Model
 {
 	// ===========================================================================
@@ -13,6 +15,16 @@ public final class Model
 	public static final int emptySpace = 0;
 	public static final int playerOne = 1;
 	public static final int playerTwo = -1;
+
+	// Boards with more bits than this (e.g. above roughly 500x500) only store the parts holding discs, see SparseBitboard.
+	// Below it a plain array of words is smaller and quicker.
+	public static final int SPARSE_BOARD_BITS = 1 << 18;
+
+	// Bits are numbered with an int, so (nrRows + 1) * nrCols must fit in one, see isValidSize
+	public static final long MAX_BOARD_BITS = Integer.MAX_VALUE;
+
+	// Zobrist key which is xored into the hash whenever the turn changes
+	private static final long SIDE_TO_MOVE_KEY = mix64(0x5DEECE66DL);
 	
 	// ========================================================================
 	// ================================ FIELDS ================================
@@ -24,15 +36,59 @@ public final class Model
 	// The number of pieces in a row required for a win
 	private int numberToWin;
 
-	// Board is a 2D array of strings, currently all set to null
-	private int[][] board;
+	// The board is stored as a bitboard per player. Each column takes up nrRows + 1 bits, counted from the bottom
+	// of the column upwards, so the disc at (row, col) lives at bit col * columnBits + (nrRows - 1 - row).
+	// The extra bit on top of every column is never set, which stops shifted discs leaking into the next column.
+	private int columnBits;
+
+	// Boards with (nrRows + 1) * nrCols <= 64 bits fit into a single long per player (the default 6x7 board uses 49)
+	private boolean singleWord;
+	private long playerOneDiscs;
+	private long playerTwoDiscs;
+
+	// Larger boards fall back onto an array of longs per player, using the same bit layout
+	private long[] playerOneWords;
+	private long[] playerTwoWords;
+
+	// Huge boards keep only the words with discs in them, again with the same bit layout
+	private boolean sparse;
+	private SparseBitboard playerOneSparse;
+	private SparseBitboard playerTwoSparse;
+
+	// Number of discs in each column, which is also the height at which the next disc in that column lands
+	private int[] heights;
+
+	// Bit c is set while column c has space, for boards of up to 64 columns
+	private long legalMoves;
 
 	// Number of pieces currently held in the board
 	private int numberOfPieces;
 
+	// Columns of the moves made since the board was wiped, oldest first. Only the first ply entries are in use.
+	// Discs written with setBoard when loading a game are not moves, so they are not recorded here.
+	private int[] moveHistory;
+	private int ply;
+
 	// Boolean for keeping track of whose turn it is, initially player 1
 	private boolean playerOneTurn = true;
 
+	// Zobrist hash of the position, updated whenever a disc is added or removed or the turn changes.
+	// The random key for each (disc, player) pair is derived from the board dimensions, so positions
+	// from differently sized boards or Connect-X games never share keys.
+	private long hash;
+	private long zobristSeed;
+
+	// Hash of the same position reflected left to right, kept up to date alongside hash. A position and its mirror
+	// image are equally good for the same player, so searches and tables can share one entry between them (see
+	// getCanonicalHash).
+	private long mirrorHash;
+
+	// Heuristic evaluation of the position, kept up to date as discs are added and removed.
+	// It is null unless something has asked for evaluations, since updating it slows down every move. Huge (sparse)
+	// boards never have one, even when asked, since its tables are the size of the board; they evaluate to 0.
+	private Evaluator evaluator;
+	private boolean evaluationWanted;
+
 	// =============================================================================
 	// ================================ CONSTRUCTOR ================================
 	// =============================================================================
@@ -45,18 +101,124 @@ public final class Model
 		wipeBoard();
 	}
 
+	public Model(Model other) {
+		// Copies another model, so the copy can be changed (e.g. searched on another thread) without affecting the original
+		copyFrom(other);
+		evaluator = other.evaluator == null ? null : new Evaluator(other.evaluator);
+		evaluationWanted = other.evaluationWanted;
+	}
+
+	public void copyFrom(Model other){
+		// Turns this model into a copy of another one, reusing its arrays when they are big enough, so a model
+		// kept for searching many positions in turn does not allocate a new board for each one.
+		// Evaluation stays on if it was on, and off if it was off.
+		nrRows = other.nrRows;
+		nrCols = other.nrCols;
+		numberToWin = other.numberToWin;
+		columnBits = other.columnBits;
+		singleWord = other.singleWord;
+		playerOneDiscs = other.playerOneDiscs;
+		playerTwoDiscs = other.playerTwoDiscs;
+		playerOneWords = copyOf(other.playerOneWords, playerOneWords);
+		playerTwoWords = copyOf(other.playerTwoWords, playerTwoWords);
+		sparse = other.sparse;
+		playerOneSparse = other.playerOneSparse == null ? null : new SparseBitboard(other.playerOneSparse);
+		playerTwoSparse = other.playerTwoSparse == null ? null : new SparseBitboard(other.playerTwoSparse);
+		heights = copyOf(other.heights, heights);
+		legalMoves = other.legalMoves;
+		numberOfPieces = other.numberOfPieces;
+		moveHistory = copyOf(other.moveHistory, moveHistory);
+		ply = other.ply;
+		playerOneTurn = other.playerOneTurn;
+		hash = other.hash;
+		mirrorHash = other.mirrorHash;
+		zobristSeed = other.zobristSeed;
+
+		if(evaluationWanted && sparse){
+			evaluator = null;
+		} else if(evaluationWanted){
+			// Positions of the same shape, such as every job a MoveService worker takes, keep the same evaluator
+			if(evaluator == null || !evaluator.hasShape(nrRows, nrCols, numberToWin)){
+				evaluator = new Evaluator(nrRows, nrCols, numberToWin);
+			}
+			if(other.evaluator != null){
+				evaluator.copyFrom(other.evaluator);
+			} else {
+				evaluator.clear();
+				scoreDiscs();
+			}
+		}
+	}
+
+	private static long[] copyOf(long[] source, long[] target){
+		if(source == null){
+			return null;
+		}
+		if(target == null || target.length != source.length){
+			return source.clone();
+		}
+		System.arraycopy(source, 0, target, 0, source.length);
+		return target;
+	}
+
+	private static int[] copyOf(int[] source, int[] target){
+		// Only the length of the source counts, e.g. makeMove grows moveHistory once it is full
+		if(target == null || target.length != source.length){
+			return source.clone();
+		}
+		System.arraycopy(source, 0, target, 0, source.length);
+		return target;
+	}
+
 	public void wipeBoard(){
 		// Resets the board and makes player one player first
 		// Note if the dimensions of the board are changed, if a game is restarted then the same dimensions will remain
+		if(!isValidSize(nrRows, nrCols)){
+			throw new IllegalArgumentException("A " + nrRows + "x" + nrCols + " board is too big, or has no squares");
+		}
 
 		numberOfPieces = 0;
 		playerOneTurn = true;
-		board = new int[nrRows][nrCols];
 
-		// Fill the board with empty spaces
-		for(int r = 0; r < nrRows; r++){
-			for(int c = 0; c < nrCols; c++){
-				board[r][c] = emptySpace;
+		// The history grows if needed, so a huge board does not reserve space for a move on every square up front
+		moveHistory = new int[(int) Math.min((long) nrRows * nrCols, 1024)];
+		ply = 0;
+
+		zobristSeed = mix64(((long) nrRows << 40) ^ ((long) nrCols << 20) ^ numberToWin);
+		hash = 0L;
+		mirrorHash = 0L;
+
+		// The bit layout depends on the board size, so it is recalculated here
+		columnBits = nrRows + 1;
+		singleWord = (long) columnBits * nrCols <= Long.SIZE;
+		sparse = (long) columnBits * nrCols > SPARSE_BOARD_BITS;
+
+		playerOneDiscs = 0L;
+		playerTwoDiscs = 0L;
+
+		heights = new int[nrCols];
+		legalMoves = nrCols >= Long.SIZE ? -1L : (1L << nrCols) - 1;
+
+		playerOneWords = null;
+		playerTwoWords = null;
+		playerOneSparse = null;
+		playerTwoSparse = null;
+		if(sparse){
+			playerOneSparse = new SparseBitboard();
+			playerTwoSparse = new SparseBitboard();
+		} else if(!singleWord){
+			int words = (int) (((long) columnBits * nrCols + Long.SIZE - 1) / Long.SIZE);
+			playerOneWords = new long[words];
+			playerTwoWords = new long[words];
+		}
+
+		if(evaluationWanted && sparse){
+			evaluator = null;
+		} else if(evaluationWanted){
+			if(evaluator != null && evaluator.hasShape(nrRows, nrCols, numberToWin)){
+				evaluator.clear();
+			} else {
+				evaluator = new Evaluator(nrRows, nrCols, numberToWin);
 			}
 		}
 	}
@@ -71,60 +233,106 @@ public final class Model
 		}
 
 		// If the top is empty, then the column has space
-		return board[0][col] == emptySpace;
+		return heights[col] < nrRows;
 	}
 	
 	public void makeMove(int col) {
-		int firstEmptyRow = -1;
+		Metrics.MAKE_MOVE.increment();
 
-		// Loop through each row, from base up
-		for(int r = nrRows - 1; r >= 0; r--){
-			// If the current cell is empty, then that is our first empty row and we can exit loop
-			if(board[r][col] == emptySpace){
-				firstEmptyRow = r;
-				break;
-			}
+		// The new disc sits directly on top of the discs already in the column
+		int height = heights[col];
+		int bit = col * columnBits + height;
+
+		heights[col] = height + 1;
+		if(height + 1 == nrRows && col < Long.SIZE){
+			legalMoves &= ~(1L << col);
 		}
 
 		// Actually place move
-		if(playerOneTurn){board[firstEmptyRow][col] = playerOne;} else {board[firstEmptyRow][col] = playerTwo;}
+		if(playerOneTurn){setBit(true, bit);} else {setBit(false, bit);}
 
 		// Swap turn by negating boolean
 		playerOneTurn = !playerOneTurn;
+		hash ^= SIDE_TO_MOVE_KEY;
+		mirrorHash ^= SIDE_TO_MOVE_KEY;
 
 		numberOfPieces++;
 
+		if(ply == moveHistory.length){
+			moveHistory = Arrays.copyOf(moveHistory, (int) Math.min(2L * ply, (long) nrRows * nrCols));
+		}
+		moveHistory[ply++] = col;
 	}
 
 	public void undoMove(int col){
 		// Undoes the most recent move in a column
+		Metrics.UNDO_MOVE.increment();
+
+		// The top disc of the column is the most recent one, an empty column has nothing to undo
+		int height = heights[col];
+		if(height == 0){
+			return;
+		}
 
 		// if we make a move, the turn switches. If we want to undo the move, then we must switch the turn again
 		playerOneTurn = !playerOneTurn;
+		hash ^= SIDE_TO_MOVE_KEY;
+		mirrorHash ^= SIDE_TO_MOVE_KEY;
 
-		// Loop from top down, first non-empty space becomes empty
-		for(int r = 0; r < nrRows; r++){
-			if(board[r][col] != emptySpace){
-				board[r][col] = emptySpace;
+		int bit = col * columnBits + height - 1;
+		clearBit(bit);
+
+		// Undoing the last move takes it off the history as well, which is all a search ever does
+		if(ply > 0 && moveHistory[ply - 1] == col){
+			ply--;
+		} else {
+			forgetMove(col);
+		}
+
+		heights[col] = height - 1;
+		if(col < Long.SIZE){
+			legalMoves |= 1L << col;
+		}
+
+		numberOfPieces--;
+	}
+
+	private void forgetMove(int col){
+		// Takes an older move in the column off the history, so the history still matches the board and undoLast
+		// undoes the moves left in it. The column's latest entry is its top disc, since discs in a column stack in the
+		// order they were played. A column missing from the history had its top disc placed before it began (e.g. by
+		// loading a board), and there is nothing to take off.
+		for(int i = ply - 1; i >= 0; i--){
+			if(moveHistory[i] == col){
+				System.arraycopy(moveHistory, i + 1, moveHistory, i, ply - 1 - i);
+				ply--;
 				return;
 			}
 		}
+	}
 
-		numberOfPieces--;
+	public int undoLast(){
+		// Undoes the most recent move, returning its column, or -1 if there is no move to undo
+		if(ply == 0){
+			return -1;
+		}
+
+		int col = moveHistory[ply - 1];
+		undoMove(col);
+		return col;
 	}
 
 	public boolean isBoardFull(){
-		return nrRows * nrCols == numberOfPieces;
+		return (long) nrRows * nrCols == numberOfPieces;
 	}
 
 	public int getHighestDisc(int col){
 		// Gets the highest up disc in a column (the most recently dropped one)
-		for(int r = 0; r < nrRows; r++){
-			if(board[r][col] != emptySpace){
-				return r;
-			}
+		int height = heights[col];
+		if(height == 0){
+			return nrRows - 1; // The entire column is empty in this case
 		}
-		return nrRows - 1; // The entire column is empty in this case
+		return nrRows - height;
 	}
 
 	// Win check methods
@@ -133,147 +341,175 @@ public final class Model
 		// Given a the column where the most recent piece was placed, this checks if a win has been reached
 		// Note: this is much more efficient than doing a wincheck on every single piece
 		// we only need to check the most recent piece, since that is the only area a win could have occurred
+		Metrics.IS_GAME_WON.increment();
 
-		int lastPieceRow = getHighestDisc(col);
-		int lastPieceCol = col;
-
-		if(board[lastPieceRow][lastPieceCol] == emptySpace){
+		int height = heights[col];
+		if(height == 0){
 			return false;
 		}
 
-		// We then check for the four types of win that can occur
-		// Look inside horizontalWinCheck for the explanation on how the method operates.
-		// The other winChecks are very similar in logic, just changing the direction in which they check
-		// The main idea is to obtain an array of elements which are adjacent in a certain direction (vertical, horizontal or diagonal)
-		// And then check if there are X many adjacent elements in the array (this is done by the "containsXInRow" method)
-		return  horizontalWinCheck(lastPieceRow, lastPieceCol)   ||
-				verticalWinCheck(lastPieceRow, lastPieceCol)     ||
-				downDiagonalWinCheck(lastPieceRow, lastPieceCol) ||
-				upDiagonalWinCheck(lastPieceRow, lastPieceCol);
+		int bit = col * columnBits + height - 1;
+		boolean playerOnePiece = getBit(true, bit);
+
+		// We then check for the four types of win that can occur. Each direction is a fixed distance in the bit layout:
+		// 1 bit up the column, columnBits bits across a row, and columnBits -/+ 1 bits along the two diagonals
+		if(singleWord){
+			long discs = playerOnePiece ? playerOneDiscs : playerTwoDiscs;
+			return  runThroughBit(discs, bit, columnBits)     ||
+					runThroughBit(discs, bit, 1)              ||
+					runThroughBit(discs, bit, columnBits - 1) ||
+					runThroughBit(discs, bit, columnBits + 1);
+		}
+
+		return  lineThroughBit(playerOnePiece, bit, columnBits)     ||
+				lineThroughBit(playerOnePiece, bit, 1)              ||
+				lineThroughBit(playerOnePiece, bit, columnBits - 1) ||
+				lineThroughBit(playerOnePiece, bit, columnBits + 1);
 
 	}
 
 		// Note these are private since we never use them individually
 		// They are only called within the isGameWon method, which is public since it's used elsewhere
-	
-	private boolean horizontalWinCheck(int row, int col){
-		// Given a piece in the board (board[row][col]) check if that piece placed has caused a horizontal win
-
-		int piece = board[row][col];
-
-		// In a game of connect4 we need to check the three pieces to either side of recently dropped piece (as thats where a win could occur)
-		// Therefore we check 7 adjacent pieces. In a game of connectX, check 2x-1 pieces for similar reasons.
 
-		int[] pieces = new int[numberToWin*2 - 1];
-
-		for(int i = 0; i < numberToWin*2-1; i++){
+	private boolean runThroughBit(long discs, int bit, int shift){
+		// Shift-and-mask check on a single word bitboard.
+		// After the loop, runs has a bit set wherever numberToWin discs in a row begin in the given direction.
+		// Shifted discs can never wrap into a neighbouring column since the bit above each column is always empty.
+		long runs = discs;
+		for(int i = 1; i < numberToWin; i++){
+			runs &= discs >>> (i * shift);
+		}
 
-			// The reason for col - (x-1) is because we go back x-1 columns and then go forward by one by one using i
-			if(inBounds(row, col - (numberToWin - 1) + i)){
-				pieces[i] = board[row][col - (numberToWin - 1) + i];
+		// Only runs which contain the most recent disc count, the run must therefore start at most numberToWin - 1 steps back
+		for(int i = 0; i < numberToWin; i++){
+			int start = bit - i * shift;
+			if(start < 0){
+				break;
 			}
-			else {
-				pieces[i] = emptySpace; // If we have gone out the bounds of the board, just pretend the space is empty
+			if(((runs >>> start) & 1L) != 0){
+				return true;
 			}
-
 		}
-
-		return containsXInRow(pieces, piece, numberToWin);
+		return false;
 	}
 
-	private boolean verticalWinCheck(int row, int col){
-		int piece = board[row][col];
-
-		int[] pieces = new int[numberToWin*2 - 1];
-		for(int i = 0; i < numberToWin*2-1; i++){
-
-			// Obtaining all pieces before and after the recently placed piece in the column, so we keep col constant
-			if(inBounds(row - (numberToWin - 1) + i, col)){
-				pieces[i] = board[row - (numberToWin - 1) + i][col];
-			}
-			else {
-				pieces[i] = emptySpace;
-			}
+	private boolean lineThroughBit(boolean playerOnePiece, int bit, int shift){
+		// Multi-word version of the check above. Counts the matching discs either side of the most recent disc,
+		// stopping at the first gap, so no more than 2 * (numberToWin - 1) bits are ever read and nothing is allocated.
+		int inARow = 1
+				+ countInDirection(playerOnePiece, bit, shift)
+				+ countInDirection(playerOnePiece, bit, -shift);
+		return inARow >= numberToWin;
+	}
 
+	private int countInDirection(boolean playerOnePiece, int bit, int shift){
+		// Number of discs belonging to the same player directly after bit, stepping shift bits at a time.
+		// Stepping off the top or bottom of a column lands on an always empty bit, so the count stops there too.
+		int count = 0;
+		int next = bit + shift;
+		while(count < numberToWin - 1 && getBit(playerOnePiece, next)){
+			count++;
+			next += shift;
 		}
+		return count;
+	}
 
-		return containsXInRow(pieces, piece, numberToWin);
+	public boolean inBounds(int r, int c){
+		// Method which checks whether a given row and column number are within the boards range
+		return r >= 0 && r < nrRows && c >= 0 && c < nrCols;
 	}
 
-	private boolean downDiagonalWinCheck(int row, int col){
-		int piece = board[row][col];
+	// Bitboard helpers
 
-		int[] pieces = new int[numberToWin*2 - 1];
-		for(int i = 0; i < numberToWin*2-1; i++){
-			// For down diagonal we go back on rows and columns and iterate over both
-			if(inBounds(row - (numberToWin - 1) + i, col - (numberToWin - 1) + i)){
-				pieces[i] = board[row - (numberToWin - 1) + i][col - (numberToWin - 1) + i];
-			} else {
-				pieces[i] = emptySpace;
-			}
-		}
-
-		return containsXInRow(pieces, piece, numberToWin);
+	private boolean isOccupied(int bit){
+		return getBit(true, bit) || getBit(false, bit);
 	}
 
-	private boolean upDiagonalWinCheck(int row, int col){
-		int piece = board[row][col];
-
-		int[] pieces = new int[numberToWin*2 - 1];
-		for(int i = 0; i < numberToWin*2-1; i++){
+	private boolean getBit(boolean playerOnePiece, int bit){
+		// Bits outside the board are treated as empty spaces
+		if(bit < 0 || bit >= columnBits * nrCols){
+			return false;
+		}
 
-			// Here we go back x - 1 rows and then go forward one by one using i
-			// and we go forward by x - 1 columns and then go backward one by one using -i
+		if(singleWord){
+			long discs = playerOnePiece ? playerOneDiscs : playerTwoDiscs;
+			return ((discs >>> bit) & 1L) != 0;
+		}
 
-			if(inBounds(row - (numberToWin - 1) + i, col + numberToWin - 1 - i)){
-				pieces[i] = board[row - (numberToWin - 1) + i][col + numberToWin - 1 - i];
-			} else {
-				pieces[i] = emptySpace;
-			}
+		if(sparse){
+			return (playerOnePiece ? playerOneSparse : playerTwoSparse).get(bit);
 		}
 
-		return containsXInRow(pieces, piece, numberToWin);
+		long[] words = playerOnePiece ? playerOneWords : playerTwoWords;
+		return ((words[bit >>> 6] >>> bit) & 1L) != 0;
 	}
 
-	public boolean inBounds(int r, int c){
-		// Method which checks whether a given row and column number are within the boards range
-		return r >= 0 && r < nrRows && c >= 0 && c < nrCols;
-	}
+	private void setBit(boolean playerOnePiece, int bit){
+		hash ^= zobristKey(playerOnePiece, bit);
+		mirrorHash ^= zobristKey(playerOnePiece, mirrorBit(bit));
+		if(evaluator != null){
+			evaluator.place(bit / columnBits, bit % columnBits, playerOnePiece);
+		}
 
-	// Static methods which help the winCheck methods
+		if(singleWord){
+			if(playerOnePiece){playerOneDiscs |= 1L << bit;} else {playerTwoDiscs |= 1L << bit;}
+		} else if(sparse){
+			(playerOnePiece ? playerOneSparse : playerTwoSparse).set(bit);
+		} else {
+			long[] words = playerOnePiece ? playerOneWords : playerTwoWords;
+			words[bit >>> 6] |= 1L << bit;
+		}
+	}
 
-	public static int[] slice(int[] arr, int start, int end){
-		// Given an array called arr, this method returns an array containing the elements indexed from start to end - 1
-		// e.g. slice([7,8,9,0,1], 1, 3) == [8,9]
+	private void clearBit(int bit){
+		// Clears the bit for both players, since at most one of them owns it
+		if(evaluator != null){
+			evaluator.remove(bit / columnBits, bit % columnBits);
+		}
+		if(getBit(true, bit)){
+			hash ^= zobristKey(true, bit);
+			mirrorHash ^= zobristKey(true, mirrorBit(bit));
+		} else if(getBit(false, bit)){
+			hash ^= zobristKey(false, bit);
+			mirrorHash ^= zobristKey(false, mirrorBit(bit));
+		}
 
-		int[] newArr = new int[end - start];
-		for(int i = start; i < end; i++){
-			newArr[i - start] = arr[i];
+		if(singleWord){
+			playerOneDiscs &= ~(1L << bit);
+			playerTwoDiscs &= ~(1L << bit);
+		} else if(sparse){
+			playerOneSparse.clear(bit);
+			playerTwoSparse.clear(bit);
+		} else {
+			playerOneWords[bit >>> 6] &= ~(1L << bit);
+			playerTwoWords[bit >>> 6] &= ~(1L << bit);
 		}
-		return newArr;
 	}
 
-	public static boolean containsXInRow(int[] arr, int elem, int x){
-		// array called arr, an element to check for called elem, and a number of times called x.
-		// This method returns true if elem appears consecutively x times within arr.
-
-		// Take moving slices of length x from the array
-		for(int i = 0; i < arr.length - x + 1; i++){
+	private int bitIndex(int r, int c){
+		// Row 0 is the top of the board, whereas bits are counted from the bottom of each column
+		return c * columnBits + (nrRows - 1 - r);
+	}
 
-			int[] slicedArr = slice(arr, i, i+x);   // Take a slice of the original array
-			boolean hasXInARow = true;                         // Assume the array has x elems in a row
+	private int mirrorBit(int bit){
+		// The same height in the column the same distance from the other side of the board
+		int col = bit / columnBits;
+		return (nrCols - 1 - col) * columnBits + bit - col * columnBits;
+	}
 
-			for(int e : slicedArr){
-				if(e != elem){                           // counterexample => flag is false then break the inner loop
-					hasXInARow = false;
-					break;
-				}
-			}
+	// Hashing helpers
 
-			if(hasXInARow){return true;}
-		}
+	private long zobristKey(boolean playerOnePiece, int bit){
+		// Rather than storing a table of random numbers for every square, which would be huge for large boards,
+		// the random number is generated from the square and player whenever it is needed
+		return mix64(zobristSeed + (2L * bit + (playerOnePiece ? 0 : 1)));
+	}
 
-		return false;
+	private static long mix64(long z){
+		// SplitMix64 finaliser, which spreads every input bit across the whole output
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
 	}
 
 	// =========================================================================
@@ -284,16 +520,96 @@ public final class Model
 	
 	public int getNrCols() { return nrCols; }
 
-	public int[][] getBoard(){ return board; }
+	public int[][] getBoard(){
+		// Builds the 2D array representation of the board used by the view and when saving
+		int[][] board = new int[nrRows][nrCols];
+		for(int r = 0; r < nrRows; r++){
+			for(int c = 0; c < nrCols; c++){
+				board[r][c] = getCell(r, c);
+			}
+		}
+		return board;
+	}
+
+	public int getCell(int r, int c){
+		// The value getBoard()[r][c] would have, row 0 being the top, without building the whole board
+		int bit = bitIndex(r, c);
+		if(getBit(true, bit)){
+			return playerOne;
+		} else if(getBit(false, bit)){
+			return playerTwo;
+		}
+		return emptySpace;
+	}
 
 	public boolean getTurn(){return playerOneTurn;}
 
 	public int getNumberToWin(){return numberToWin;}
 
+	public int getNumberOfPieces(){return numberOfPieces;}
+
+	public long getHash(){return hash;}
+
+	// The smaller of the hashes of the position and its mirror image, which is the same for both of them.
+	// Anything stored under this key which mentions a column should store canonicalColumn(col) instead.
+	public long getCanonicalHash(){return Math.min(hash, mirrorHash);}
+
+	// True if the canonical hash is the mirror image's, in which case canonical columns are the other way around
+	public boolean isMirrored(){return mirrorHash < hash;}
+
+	public int canonicalColumn(int col){
+		// Turns a column of this position into the same column of its canonical orientation, and back again
+		return mirrorHash < hash ? nrCols - 1 - col : col;
+	}
+
+	public int getHeight(int col){return heights[col];}
+
+	// The bitboard of one player's discs, for boards where (nrRows + 1) * nrCols <= 64 (see isSingleWord)
+	public long getDiscs(boolean playerOnePieces){return playerOnePieces ? playerOneDiscs : playerTwoDiscs;}
+
+	public boolean isSingleWord(){return singleWord;}
+
+	public boolean isSparse(){return sparse;}
+
+	public long getBoardBytes(){
+		// Roughly how much memory the discs take up, whichever way they are stored
+		if(singleWord){
+			return 2L * Long.BYTES;
+		}
+		if(sparse){
+			return playerOneSparse.getBytes() + playerTwoSparse.getBytes();
+		}
+		return (long) Long.BYTES * (playerOneWords.length + playerTwoWords.length);
+	}
+
+	public int getPly(){return ply;}
+
+	public int getLastMove(){return ply == 0 ? -1 : moveHistory[ply - 1];}
+
+	public int[] getMoveHistory(){return Arrays.copyOf(moveHistory, ply);}
+
+	// Bit c is set if a disc can be dropped in column c. Only covers the first 64 columns, use isMoveValid for wider boards.
+	public long getLegalMoves(){return legalMoves;}
+
+	public int evaluate(){
+		// Heuristic score of the position for the player to move, or 0 if evaluation is not enabled
+		if(evaluator == null){
+			return 0;
+		}
+		return playerOneTurn ? evaluator.score() : -evaluator.score();
+	}
+
+	public boolean isEvaluationEnabled(){return evaluator != null;}
+
 	// =========================================================================
 	// ================================ SETTERS ================================
 	// =========================================================================
 
+	public static boolean isValidSize(int rows, int cols){
+		// Every square, plus the spare bit at the top of each column, needs a bit number which fits in an int
+		return rows >= 1 && cols >= 1 && ((long) rows + 1) * cols <= MAX_BOARD_BITS;
+	}
+
 	public void setRows(int r){ nrRows = r; }
 
 	public void setCols(int c){ nrCols = c; }
@@ -301,11 +617,64 @@ public final class Model
 	public void setNumberToWin(int n){ numberToWin = n; }
 
 	public void setBoard(int r, int c, int value){
-		board[r][c] = value;
+		int bit = bitIndex(r, c);
+		clearBit(bit);
+		if(value == playerOne){
+			setBit(true, bit);
+		} else if(value == playerTwo){
+			setBit(false, bit);
+		}
+
+		// Keep the column height up to date. Boards are loaded from the top row down, so the discs of a column
+		// only count once the bottom one has been written, at which point the height climbs past all of them.
+		int height = nrRows - 1 - r;
+		if(value == emptySpace && height < heights[c]){
+			heights[c] = height;
+		}
+		while(heights[c] < nrRows && isOccupied(c * columnBits + heights[c])){
+			heights[c]++;
+		}
+
+		if(c < Long.SIZE){
+			if(heights[c] < nrRows){legalMoves |= 1L << c;} else {legalMoves &= ~(1L << c);}
+		}
 	}
 
 	public void setNumberOfPieces(int n){ numberOfPieces = n;}
 
-	public void reverseTurn(){playerOneTurn = !playerOneTurn;}
+	public void setEvaluationEnabled(boolean enabled){
+		// Turning evaluation on scores the discs already on the board once, after which it is kept up to date.
+		// On a sparse board it is only noted, and takes effect if the board is wiped to an ordinary size.
+		evaluationWanted = enabled;
+		if(!enabled){
+			evaluator = null;
+			return;
+		}
+		if(evaluator != null || sparse){
+			return;
+		}
+
+		evaluator = new Evaluator(nrRows, nrCols, numberToWin);
+		scoreDiscs();
+	}
+
+	private void scoreDiscs(){
+		// Tells the evaluator about every disc on the board
+		for(int c = 0; c < nrCols; c++){
+			// Only the discs need visiting, which are all below the column's height
+			for(int height = 0; height < heights[c]; height++){
+				int bit = c * columnBits + height;
+				if(isOccupied(bit)){
+					evaluator.place(c, height, getBit(true, bit));
+				}
+			}
+		}
+	}
+
+	public void reverseTurn(){
+		playerOneTurn = !playerOneTurn;
+		hash ^= SIDE_TO_MOVE_KEY;
+		mirrorHash ^= SIDE_TO_MOVE_KEY;
+	}
 
 }
@@ -0,0 +1,461 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public final class MonteCarloSearch
+{
+	// ===========================================================================
+	// ================================ CONSTANTS ================================
+	// ===========================================================================
+	public static final long DEFAULT_TIME_BUDGET_MILLIS = 1000;
+	public static final int DEFAULT_MAX_NODES = 1 << 19;
+
+	// Exploration constant of the UCT formula, sqrt(2) is the textbook value for rewards between 0 and 1
+	private static final double EXPLORATION = Math.sqrt(2);
+
+	private static final int NONE = -1;
+
+	// A playout still going after this many moves is scored as a draw. Games on ordinary boards end long before,
+	// but on a huge board playing until it is full could take the whole time budget for a single playout.
+	public static final int MAX_PLAYOUT_MOVES = 1000;
+
+	// What is known about the position of a node, filled in the first time the node is reached
+	private static final byte UNKNOWN = 0;
+	private static final byte ONGOING = 1;
+	private static final byte WON     = 2; // The move into the node won the game
+	private static final byte DRAWN   = 3;
+
+	// ========================================================================
+	// ================================ FIELDS ================================
+	// ========================================================================
+	private final Model model;
+
+	// The search's own copy of the model, which the playouts are played on. Playouts only need to know who won, so
+	// it never has evaluation turned on, and it is reused from move to move so its arrays are only allocated once.
+	private final Model position = new Model();
+
+	private long timeBudgetMillis = DEFAULT_TIME_BUDGET_MILLIS;
+
+	// When above 0, the search stops after this many playouts even if there is time left
+	private long maxPlayouts = 0;
+
+	// Heavy playouts take an immediate win, or block the opponent's, before falling back to a random move
+	private boolean heavyPlayouts = true;
+
+	private SplittableRandom random;
+
+	// The tree is held in flat arrays indexed by node number rather than one object per node.
+	// The children of a node are created together and sit next to each other, from firstChild[node] onwards.
+	private final int maxNodes;
+	private final int[] parent;
+	private final int[] firstChild;
+	private final int[] childCount;
+	private final int[] move;
+	private final int[] visits;
+	private final float[] wins;   // From the point of view of the player who made the move into the node, draws count half
+	private final byte[] state;
+	private int nodeCount;
+
+	// The root of the tree, and the position it stands for, so the tree can be reused on the next move
+	private int root = NONE;
+	private long rootHash;
+	private int rootPly;
+
+	// Nodes visited from the root during the current playout
+	private int[] path = new int[64];
+
+	// When the current search must stop, playouts still going at that point are scored as a draw
+	private long deadline;
+
+	// Statistics for the last move
+	private long playouts;
+	private long elapsedMillis;
+	private int reusedVisits;
+
+	// =============================================================================
+	// ================================ CONSTRUCTOR ================================
+	// =============================================================================
+	public MonteCarloSearch(Model model){
+		this(model, DEFAULT_MAX_NODES, new SplittableRandom());
+	}
+
+	public MonteCarloSearch(Model model, int maxNodes, SplittableRandom random){
+		this.model = model;
+		this.maxNodes = maxNodes;
+		this.random = random;
+
+		parent = new int[maxNodes];
+		firstChild = new int[maxNodes];
+		childCount = new int[maxNodes];
+		move = new int[maxNodes];
+		visits = new int[maxNodes];
+		wins = new float[maxNodes];
+		state = new byte[maxNodes];
+	}
+
+	// ========================================================================
+	// ================================ SEARCH ================================
+	// ========================================================================
+	public int bestMove(){
+		// Runs playouts until the time budget (or playout limit) is used up and returns the most visited column.
+		// Every column is played out at least once, even if that takes a little past the budget, so none is chosen or
+		// passed over without being looked at. The playouts are played on a copy of the model, so the real model is
+		// never changed.
+		position.copyFrom(model);
+		int startPly = position.getPly();
+		boolean rootPlayerOne = position.getTurn();
+
+		findRoot(position);
+
+		long start = System.currentTimeMillis();
+		deadline = start + timeBudgetMillis;
+		playouts = 0;
+
+		do {
+			runPlayout(position, rootPlayerOne);
+			playouts++;
+
+			// Every move made by the playout is taken back, ready for the next one
+			while(position.getPly() > startPly){
+				position.undoLast();
+			}
+		} while(((maxPlayouts <= 0 || playouts < maxPlayouts) && System.currentTimeMillis() < deadline) || hasUnvisitedChild(root));
+
+		elapsedMillis = System.currentTimeMillis() - start;
+		return mostVisitedChild(root);
+	}
+
+	private void runPlayout(Model position, boolean rootPlayerOne){
+		// Selection: follow the UCT choice down the tree until reaching a leaf or the end of the game
+		int node = root;
+		int depth = 0;
+		path[0] = root;
+
+		while(state[node] == ONGOING || state[node] == UNKNOWN){
+			if(firstChild[node] == NONE){
+				// Expansion: a leaf which has been played out before gets its children, and the first of them is played out
+				if((visits[node] > 0 || node == root) && expand(node, position)){
+					node = firstChild[node];
+					depth = enter(node, position, depth);
+				}
+				break;
+			}
+
+			node = selectChild(node);
+			depth = enter(node, position, depth);
+		}
+
+		// Simulation: the result is +1 if player one wins, -1 if player two wins and 0 for a draw
+		int result;
+		if(state[node] == WON){
+			boolean moverIsPlayerOne = (depth % 2 == 1) == rootPlayerOne;
+			result = moverIsPlayerOne ? 1 : -1;
+		} else if(state[node] == DRAWN){
+			result = 0;
+		} else {
+			result = playout(position);
+		}
+
+		// Backpropagation: every node on the path is scored for the player who made the move into it
+		for(int i = depth; i >= 0; i--){
+			int n = path[i];
+			visits[n]++;
+
+			boolean moverIsPlayerOne = (i % 2 == 1) == rootPlayerOne;
+			if(result == 0){
+				wins[n] += 0.5f;
+			} else if((result == 1) == moverIsPlayerOne){
+				wins[n] += 1f;
+			}
+		}
+	}
+
+	private int enter(int node, Model position, int depth){
+		// Plays the move into a node, works out whether it ended the game if this is the first visit, and adds it to the path
+		int col = move[node];
+		position.makeMove(col);
+
+		if(state[node] == UNKNOWN){
+			if(position.isGameWon(col)){
+				state[node] = WON;
+			} else if(position.isBoardFull()){
+				state[node] = DRAWN;
+			} else {
+				state[node] = ONGOING;
+			}
+		}
+
+		depth++;
+		if(depth == path.length){
+			path = Arrays.copyOf(path, 2 * path.length);
+		}
+		path[depth] = node;
+		return depth;
+	}
+
+	private int selectChild(int node){
+		// Unvisited children are tried first, otherwise the child with the highest upper confidence bound is chosen
+		double logVisits = Math.log(visits[node]);
+		int best = NONE;
+		double bestValue = Double.NEGATIVE_INFINITY;
+
+		int first = firstChild[node];
+		for(int child = first; child < first + childCount[node]; child++){
+			if(visits[child] == 0){
+				return child;
+			}
+
+			double value = wins[child] / visits[child] + EXPLORATION * Math.sqrt(logVisits / visits[child]);
+			if(value > bestValue){
+				bestValue = value;
+				best = child;
+			}
+		}
+		return best;
+	}
+
+	private boolean expand(int node, Model position){
+		// Creates a child for every legal move, unless the tree is full
+		int nrCols = position.getNrCols();
+		int legal = 0;
+		for(int c = 0; c < nrCols; c++){
+			if(position.isMoveValid(c)){
+				legal++;
+			}
+		}
+
+		if(legal == 0 || nodeCount + legal > maxNodes){
+			return false;
+		}
+
+		firstChild[node] = nodeCount;
+		childCount[node] = legal;
+		for(int c = 0; c < nrCols; c++){
+			if(position.isMoveValid(c)){
+				newNode(node, c);
+			}
+		}
+		return true;
+	}
+
+	private int newNode(int parentNode, int col){
+		int node = nodeCount++;
+		parent[node] = parentNode;
+		firstChild[node] = NONE;
+		childCount[node] = 0;
+		move[node] = col;
+		visits[node] = 0;
+		wins[node] = 0f;
+		state[node] = UNKNOWN;
+		return node;
+	}
+
+	private boolean hasUnvisitedChild(int node){
+		int first = firstChild[node];
+		if(first == NONE){
+			return false;
+		}
+		for(int child = first; child < first + childCount[node]; child++){
+			if(visits[child] == 0){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int mostVisitedChild(int node){
+		// Ties go to the child with the better win rate, then to the column nearer the centre, as the search does
+		int best = NONE;
+		int first = firstChild[node];
+		for(int child = first; child < first + childCount[node]; child++){
+			if(best == NONE || isBetterChild(child, best)){
+				best = child;
+			}
+		}
+		return best == NONE ? NONE : move[best];
+	}
+
+	private boolean isBetterChild(int child, int best){
+		if(visits[child] != visits[best]){
+			return visits[child] > visits[best];
+		}
+		if(visits[child] > 0){
+			// Compared without dividing, since both have the same number of visits
+			if(wins[child] != wins[best]){
+				return wins[child] > wins[best];
+			}
+		}
+		return distanceFromCentre(move[child]) < distanceFromCentre(move[best]);
+	}
+
+	private int distanceFromCentre(int col){
+		// Twice the distance, so boards with an even number of columns have two equally central columns
+		return Math.abs(2 * col - (model.getNrCols() - 1));
+	}
+
+	// ========================================================================
+	// ================================ PLAYOUTS ==============================
+	// ========================================================================
+	private int playout(Model position){
+		// Plays the game out to the end, returning +1 if player one wins, -1 if player two wins and 0 for a draw.
+		// A playout which runs out of moves or time stops where it is and counts as a draw.
+		for(int moves = 0; moves < MAX_PLAYOUT_MOVES; moves++){
+			if(System.currentTimeMillis() >= deadline){
+				return 0;
+			}
+
+			int col = heavyPlayouts ? heavyMove(position) : randomMove(position);
+			boolean playerOneMoved = position.getTurn();
+			position.makeMove(col);
+
+			if(position.isGameWon(col)){
+				return playerOneMoved ? 1 : -1;
+			}
+			if(position.isBoardFull()){
+				return 0;
+			}
+		}
+		return 0;
+	}
+
+	private int randomMove(Model position){
+		int nrCols = position.getNrCols();
+
+		if(nrCols <= Long.SIZE){
+			// Pick a random set bit of the legal move mask
+			long legal = position.getLegalMoves();
+			for(int skip = random.nextInt(Long.bitCount(legal)); skip > 0; skip--){
+				legal &= legal - 1;
+			}
+			return Long.numberOfTrailingZeros(legal);
+		}
+
+		int col = random.nextInt(nrCols);
+		while(!position.isMoveValid(col)){
+			col = random.nextInt(nrCols);
+		}
+		return col;
+	}
+
+	private int heavyMove(Model position){
+		// Take a winning move if there is one, otherwise block the opponent's winning move, otherwise play randomly
+		int nrCols = position.getNrCols();
+		int block = NONE;
+
+		for(int c = 0; c < nrCols; c++){
+			if(!position.isMoveValid(c)){
+				continue;
+			}
+
+			position.makeMove(c);
+			boolean isWin = position.isGameWon(c);
+			position.undoLast();
+			if(isWin){
+				return c;
+			}
+
+			if(block == NONE){
+				// Check the same column for the opponent, as in ComputerPlayer.preventLosingMove
+				position.reverseTurn();
+				position.makeMove(c);
+				if(position.isGameWon(c)){
+					block = c;
+				}
+				position.undoLast();
+				position.reverseTurn();
+			}
+		}
+
+		return block != NONE ? block : randomMove(position);
+	}
+
+	// ========================================================================
+	// ================================ TREE REUSE ============================
+	// ========================================================================
+	private void findRoot(Model position){
+		// If the position follows on from the previous root by moves which are still in the tree, the subtree below
+		// that point becomes the new root and its statistics are kept. Otherwise the tree is started again.
+		reusedVisits = 0;
+		int newRoot = NONE;
+
+		int movesSinceRoot = position.getPly() - rootPly;
+		boolean treeIsCrowded = nodeCount > maxNodes - maxNodes / 4;
+
+		int[] history = position.getMoveHistory();
+		if(root != NONE && !treeIsCrowded && movesSinceRoot >= 0 && followsFromRoot(position, history, movesSinceRoot)){
+			newRoot = root;
+			for(int i = rootPly; i < history.length && newRoot != NONE; i++){
+				newRoot = childWithMove(newRoot, history[i]);
+			}
+		}
+
+		if(newRoot == NONE){
+			nodeCount = 0;
+			newRoot = newNode(NONE, NONE);
+		} else {
+			parent[newRoot] = NONE;
+			reusedVisits = visits[newRoot];
+		}
+
+		// The root is always a position where the game is still going, otherwise the computer would not be asked to move
+		root = newRoot;
+		state[root] = ONGOING;
+		rootHash = position.getHash();
+		rootPly = position.getPly();
+	}
+
+	public void clearTree(){
+		// Forgets every playout, so the next search starts from an empty tree
+		root = NONE;
+		nodeCount = 0;
+	}
+
+	private boolean followsFromRoot(Model position, int[] history, int movesSinceRoot){
+		// Taking back the moves made since the root must lead back to the root position.
+		// The moves are played again afterwards, so the position is left as it was found.
+		for(int i = 0; i < movesSinceRoot; i++){
+			position.undoLast();
+		}
+		boolean follows = position.getHash() == rootHash;
+		for(int i = history.length - movesSinceRoot; i < history.length; i++){
+			position.makeMove(history[i]);
+		}
+		return follows;
+	}
+
+	private int childWithMove(int node, int col){
+		int first = firstChild[node];
+		if(first == NONE){
+			return NONE;
+		}
+		for(int child = first; child < first + childCount[node]; child++){
+			if(move[child] == col){
+				return child;
+			}
+		}
+		return NONE;
+	}
+
+	// =========================================================================
+	// ================================ GETTERS ================================
+	// =========================================================================
+	public long getPlayouts(){ return playouts; }
+
+	public long getElapsedMillis(){ return elapsedMillis; }
+
+	public double getPlayoutsPerSecond(){ return playouts * 1000.0 / Math.max(1, elapsedMillis); }
+
+	public int getTreeSize(){ return nodeCount; }
+
+	public int getReusedVisits(){ return reusedVisits; }
+
+	// =========================================================================
+	// ================================ SETTERS ================================
+	// =========================================================================
+	public void setTimeBudgetMillis(long millis){ timeBudgetMillis = millis; }
+
+	public void setMaxPlayouts(long max){ maxPlayouts = max; }
+
+	public void setHeavyPlayouts(boolean heavy){ heavyPlayouts = heavy; }
+
+	public void setRandom(SplittableRandom random){ this.random = random; }
+}
@@ -0,0 +1,187 @@
+import java.util.Arrays;
+
+public final class MoveOrdering
+{
+	// Decides the order NegamaxSearch tries the moves of a position in. Alpha-beta only cuts a position short once it
+	// has tried a move good enough to refute it, so the sooner the best move comes up, the fewer positions are searched.
+	// Moves are tried in this order:
+	//
+	//   1. the best move stored in the transposition table, from an earlier search of the same position. The search
+	//      tries this one itself before asking for the rest, since it often refutes the position on its own.
+	//   2. the killer moves: the last two moves which cut off the search at the same ply, in some other position
+	//   3. every other move, by its history score (how much searching it has saved so far), centre columns first on ties
+	//
+	// Everything is kept in arrays of ints, sized from the board when the search starts, so ordering allocates nothing.
+
+	// ===========================================================================
+	// ================================ CONSTANTS ================================
+	// ===========================================================================
+	private static final int KILLERS_PER_PLY = 2;
+
+	// History scores are halved once any of them passes this, so old cutoffs count for less than recent ones
+	private static final int MAX_HISTORY = 1 << 24;
+
+	// Positions with less search left than this keep the centre first order for the rest of the moves, since there
+	// are a great many of them and too little below them for a better order to save more than the sorting costs
+	private static final int MIN_HISTORY_DEPTH = 3;
+
+	// ========================================================================
+	// ================================ FIELDS ================================
+	// ========================================================================
+	private int nrRows;
+	private int nrCols;
+
+	// Columns from the centre outwards, e.g. with 7 columns 3, 2, 4, 1, 5, 0, 6
+	private int[] centreFirst = new int[0];
+
+	// Killer moves for each ply from the root of the search, KILLERS_PER_PLY to a ply with the newest first. -1 is empty.
+	private int[] killers = new int[0];
+
+	// History score of every move, by the player making it and the square its disc lands on:
+	// (player * nrCols + col) * nrRows + height, where player is 0 for player one and 1 for player two.
+	// Empty on huge (sparse) boards, where a score for every square would outweigh the rest of the game.
+	private int[] history = new int[0];
+
+	// Moves and their scores for each ply, filled by order and read by the search while it works through that ply.
+	// Plies are numbered from the root, so a position's moves are not overwritten by the positions below it.
+	private int[][] moves = new int[0][];
+	private int[][] scores = new int[0][];
+
+	// Each part of the ordering can be switched off, to measure how much it helps
+	private boolean centreFirstEnabled = true;
+	private boolean hashMoveEnabled = true;
+	private boolean killersEnabled = true;
+	private boolean historyEnabled = true;
+
+	// ========================================================================
+	// ================================ SETUP =================================
+	// ========================================================================
+	public void prepare(Model model, int plies){
+		// Makes room for searches plies deep on the model's board. Killers and history are kept unless the board changed size.
+		if(model.getNrRows() != nrRows || model.getNrCols() != nrCols){
+			nrRows = model.getNrRows();
+			nrCols = model.getNrCols();
+			centreFirst = NegamaxSearch.centreFirstOrder(nrCols);
+			history = model.isSparse() ? new int[0] : new int[2 * nrCols * nrRows];
+			moves = new int[0][];
+			scores = new int[0][];
+			killers = new int[0];
+		}
+
+		if(moves.length < plies){
+			int oldKillers = killers.length;
+			moves = new int[plies][nrCols];
+			scores = new int[plies][nrCols];
+			killers = Arrays.copyOf(killers, plies * KILLERS_PER_PLY);
+			Arrays.fill(killers, oldKillers, killers.length, -1);
+		}
+	}
+
+	public void clear(){
+		// Forgets the killers and history of earlier searches, so a search does not depend on what was searched before it
+		Arrays.fill(killers, -1);
+		Arrays.fill(history, 0);
+	}
+
+	// ========================================================================
+	// ================================ ORDERING ==============================
+	// ========================================================================
+	public int hashMove(Model model, int col){
+		// The transposition table's move for the position if it should be tried first, or -1 if not
+		return hashMoveEnabled && col != -1 && model.isMoveValid(col) ? col : -1;
+	}
+
+	public int order(Model model, int ply, int depth, int hashMove){
+		// Puts the legal moves of the model's position into moves(ply), best first, and returns how many there are.
+		// depth is how deep the position is being searched. hashMove is left out, since it has already been searched,
+		// or is -1 if there was none.
+		int[] ordered = moves[ply];
+		int[] orderedScores = scores[ply];
+		int count = 0;
+
+		int killerCount = 0;
+		if(killersEnabled){
+			for(int k = ply * KILLERS_PER_PLY; k < (ply + 1) * KILLERS_PER_PLY; k++){
+				int killer = killers[k];
+				if(killer != -1 && killer != hashMove && model.isMoveValid(killer)){
+					ordered[count++] = killer;
+					killerCount++;
+				}
+			}
+		}
+		int firstOther = count;
+
+		// The rest are sorted by history score with an insertion sort, which is quickest for so few moves.
+		// Going through them from the centre outwards and only moving past strictly lower scores breaks ties towards the centre.
+		boolean sorted = historyEnabled && depth >= MIN_HISTORY_DEPTH && history.length > 0;
+		int player = model.getTurn() ? 0 : 1;
+		for(int i = 0; i < nrCols; i++){
+			int col = centreFirstEnabled ? centreFirst[i] : i;
+			if(col == hashMove || !model.isMoveValid(col) || isKiller(ordered, firstOther - killerCount, firstOther, col)){
+				continue;
+			}
+
+			int score = sorted ? history[historyIndex(player, col, model.getHeight(col))] : 0;
+			int pos = count++;
+			while(pos > firstOther && orderedScores[pos - 1] < score){
+				ordered[pos] = ordered[pos - 1];
+				orderedScores[pos] = orderedScores[pos - 1];
+				pos--;
+			}
+			ordered[pos] = col;
+			orderedScores[pos] = score;
+		}
+		return count;
+	}
+
+	public int[] moves(int ply){
+		// The moves put in place by order for the ply
+		return moves[ply];
+	}
+
+	public void cutoff(Model model, int ply, int col, int depth){
+		// Called when col refutes the model's position, searched depth plies deep, before the move is played.
+		// Deeper searches saved more work, so they count for more.
+		if(killers[ply * KILLERS_PER_PLY] != col){
+			for(int k = (ply + 1) * KILLERS_PER_PLY - 1; k > ply * KILLERS_PER_PLY; k--){
+				killers[k] = killers[k - 1];
+			}
+			killers[ply * KILLERS_PER_PLY] = col;
+		}
+
+		if(history.length == 0){
+			return;
+		}
+		int index = historyIndex(model.getTurn() ? 0 : 1, col, model.getHeight(col));
+		history[index] += depth * depth;
+		if(history[index] > MAX_HISTORY){
+			for(int i = 0; i < history.length; i++){
+				history[i] >>= 1;
+			}
+		}
+	}
+
+	private static boolean isKiller(int[] ordered, int from, int to, int col){
+		for(int i = from; i < to; i++){
+			if(ordered[i] == col){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int historyIndex(int player, int col, int height){
+		return (player * nrCols + col) * nrRows + height;
+	}
+
+	// =========================================================================
+	// ================================ SETTERS ================================
+	// =========================================================================
+	public void setCentreFirstEnabled(boolean enabled){ centreFirstEnabled = enabled; }
+
+	public void setHashMoveEnabled(boolean enabled){ hashMoveEnabled = enabled; }
+
+	public void setKillersEnabled(boolean enabled){ killersEnabled = enabled; }
+
+	public void setHistoryEnabled(boolean enabled){ historyEnabled = enabled; }
+}
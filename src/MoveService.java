@@ -0,0 +1,234 @@
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class MoveService
+{
+	// Works out computer moves for many games on a fixed pool of worker threads. A game submits its position and gets
+	// a CompletableFuture back straight away, so the thread running the game is free (or, for a virtual thread, costs
+	// nothing) while the move is worked out.
+	//
+	// Each worker takes one job at a time off the shared queue, so jobs submitted together are spread over every idle
+	// worker rather than queueing behind one. Every worker keeps one Model and ComputerPlayer for all its jobs, loading
+	// each position into the same board, and the search's copy of it into the same evaluator, so its transposition
+	// table, move ordering and opening book are built once and stay warm, instead of every game needing a search of its own.
+	//
+	// The queue depth and how long jobs wait and take are counted, see the getters.
+
+	// ===========================================================================
+	// ================================ CONSTANTS ================================
+	// ===========================================================================
+	// Shared by every game a worker plays, so it can be far bigger than a table per game
+	public static final int DEFAULT_TABLE_SIZE_MEGABYTES = 16;
+
+	// ========================================================================
+	// ================================ TYPES =================================
+	// ========================================================================
+	public static final class Result
+	{
+		private final int column;
+		private final int score;
+		private final int depth;
+		private final long nodes;
+		private final String report;
+		private final long waitNanos;
+		private final long serviceNanos;
+
+		private Result(int column, int score, int depth, long nodes, String report, long waitNanos, long serviceNanos){
+			this.column = column;
+			this.score = score;
+			this.depth = depth;
+			this.nodes = nodes;
+			this.report = report;
+			this.waitNanos = waitNanos;
+			this.serviceNanos = serviceNanos;
+		}
+
+		// Column to play, counting from 0
+		public int getColumn(){ return column; }
+
+		// Score for the player to move, as reported by the computer player
+		public int getScore(){ return score; }
+
+		public int getDepth(){ return depth; }
+
+		public long getNodes(){ return nodes; }
+
+		// The computer player's description of how the move was found
+		public String getReport(){ return report; }
+
+		// Time spent in the queue before a worker took the job
+		public long getWaitNanos(){ return waitNanos; }
+
+		// Time the worker spent on the job
+		public long getServiceNanos(){ return serviceNanos; }
+	}
+
+	private static final class Job
+	{
+		final Model position;
+		final ComputerPlayer.Strategy strategy;
+		final int searchDepth;
+		final long timeBudgetMillis;
+		final CompletableFuture<Result> result = new CompletableFuture<>();
+		final long submitted = System.nanoTime();
+
+		Job(Model position, ComputerPlayer.Strategy strategy, int searchDepth, long timeBudgetMillis){
+			this.position = position;
+			this.strategy = strategy;
+			this.searchDepth = searchDepth;
+			this.timeBudgetMillis = timeBudgetMillis;
+		}
+	}
+
+	// ========================================================================
+	// ================================ FIELDS ================================
+	// ========================================================================
+	private final BlockingQueue<Job> queue = new LinkedBlockingQueue<>();
+	private final Thread[] workers;
+	private volatile boolean running = true;
+
+	// Metrics
+	private final AtomicInteger maxQueueDepth = new AtomicInteger();
+	private final AtomicLong jobs = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+	private final AtomicLong totalServiceNanos = new AtomicLong();
+	private final AtomicLong maxServiceNanos = new AtomicLong();
+
+	// =============================================================================
+	// ================================ CONSTRUCTOR ================================
+	// =============================================================================
+	public MoveService(int threads){
+		this(threads, DEFAULT_TABLE_SIZE_MEGABYTES);
+	}
+
+	public MoveService(int threads, int tableSizeInMegabytes){
+		if(threads < 1){
+			throw new IllegalArgumentException("A move service needs at least one thread");
+		}
+
+		workers = new Thread[threads];
+		for(int i = 0; i < threads; i++){
+			workers[i] = new Thread(() -> work(tableSizeInMegabytes), "move-service-" + (i + 1));
+			workers[i].setDaemon(true);
+			workers[i].start();
+		}
+	}
+
+	// ========================================================================
+	// ================================ JOBS ==================================
+	// ========================================================================
+	public CompletableFuture<Result> submit(Model position, ComputerPlayer.Strategy strategy, int searchDepth, long timeBudgetMillis){
+		// Queues the position, copied so the game can go on changing its own board, and returns at once.
+		// The future fails if the service is shut down before the move is worked out.
+		Job job = new Job(new Model(position), strategy, searchDepth, timeBudgetMillis);
+		if(!running){
+			job.result.completeExceptionally(new IllegalStateException("The move service has been shut down"));
+			return job.result;
+		}
+		queue.add(job);
+		maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+
+		// A worker may have stopped between the check above and adding the job, so nothing would ever take it
+		if(!running && queue.remove(job)){
+			job.result.completeExceptionally(new IllegalStateException("The move service has been shut down"));
+		}
+		return job.result;
+	}
+
+	private void work(int tableSizeInMegabytes){
+		// Runs on each worker thread. The model and computer player are only ever touched here.
+		Model model = new Model();
+		ComputerPlayer computer = new ComputerPlayer(model, tableSizeInMegabytes);
+
+		while(running){
+			Job job;
+			try {
+				job = queue.take();
+			} catch (InterruptedException e) {
+				break; // Shut down
+			}
+			run(job, model, computer);
+		}
+
+		// Fail whatever is left, so nobody waits for ever
+		Job job;
+		while((job = queue.poll()) != null){
+			job.result.completeExceptionally(new IllegalStateException("The move service has been shut down"));
+		}
+	}
+
+	private void run(Job job, Model model, ComputerPlayer computer){
+		long start = System.nanoTime();
+		try {
+			model.copyFrom(job.position);
+			computer.setStrategy(job.strategy);
+			computer.setSearchDepth(job.searchDepth);
+			computer.setTimeBudgetMillis(job.timeBudgetMillis);
+			int col = computer.computeMove();
+
+			long end = System.nanoTime();
+			record(start - job.submitted, end - start);
+			job.result.complete(new Result(col, computer.getLastScore(), computer.getLastDepth(), computer.getLastNodes(),
+					computer.getLastMoveReport(), start - job.submitted, end - start));
+		} catch (RuntimeException e) {
+			// Only this job fails, the worker carries on with the next one
+			record(start - job.submitted, System.nanoTime() - start);
+			job.result.completeExceptionally(e);
+		}
+	}
+
+	private void record(long waitNanos, long serviceNanos){
+		jobs.incrementAndGet();
+		totalWaitNanos.addAndGet(waitNanos);
+		maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+		totalServiceNanos.addAndGet(serviceNanos);
+		maxServiceNanos.accumulateAndGet(serviceNanos, Math::max);
+	}
+
+	public void shutdown(){
+		// Stops the workers once they finish the job in hand. Jobs still queued fail rather than being worked out.
+		running = false;
+		for(Thread worker : workers){
+			worker.interrupt();
+		}
+	}
+
+	// =========================================================================
+	// ================================ GETTERS ================================
+	// =========================================================================
+	public int getThreads(){ return workers.length; }
+
+	// Jobs waiting for a worker right now, and the most there have been at once
+	public int getQueueDepth(){ return queue.size(); }
+
+	public int getMaxQueueDepth(){ return maxQueueDepth.get(); }
+
+	// Jobs finished, whether they succeeded or not
+	public long getJobs(){ return jobs.get(); }
+
+	public double getAverageWaitMillis(){
+		long j = jobs.get();
+		return j == 0 ? 0 : totalWaitNanos.get() / 1e6 / j;
+	}
+
+	public double getMaxWaitMillis(){ return maxWaitNanos.get() / 1e6; }
+
+	public double getAverageServiceMillis(){
+		long j = jobs.get();
+		return j == 0 ? 0 : totalServiceNanos.get() / 1e6 / j;
+	}
+
+	public double getMaxServiceMillis(){ return maxServiceNanos.get() / 1e6; }
+
+	public String describe(){
+		return String.format(Locale.ROOT,
+				"%d jobs on %d threads, queue depth %d (deepest %d), "
+						+ "wait %.3f ms average / %.3f ms max, service %.3f ms average / %.3f ms max",
+				getJobs(), getThreads(), getQueueDepth(), getMaxQueueDepth(), getAverageWaitMillis(), getMaxWaitMillis(), getAverageServiceMillis(), getMaxServiceMillis());
+	}
+}
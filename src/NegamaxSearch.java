@@ -0,0 +1,346 @@
+public final class NegamaxSearch
+{
+	// ===========================================================================
+	// ================================ CONSTANTS ================================
+	// ===========================================================================
+	// A win scores WIN_SCORE minus the number of discs on the board once it is reached, so the search prefers the
+	// quickest win and, when every move loses, the slowest loss. Since this only depends on the position and not
+	// on how the search got there, scores can be stored in the transposition table without adjusting them.
+	public static final int WIN_SCORE = 1_000_000;
+
+	// Larger than any score the search can return
+	public static final int INFINITY = WIN_SCORE + 1;
+
+	public static final int DEFAULT_MAX_DEPTH = 10;
+	public static final long DEFAULT_TIME_BUDGET_MILLIS = 500;
+
+	// The clock is read once every this many positions (plus one), which is well under a millisecond of searching
+	private static final long CLOCK_CHECK_MASK = 1023;
+
+	// ========================================================================
+	// ================================ FIELDS ================================
+	// ========================================================================
+	// The caller's model, and the search's own copy of it with evaluation turned on. The copy is brought up to date at
+	// the start of every search, so the caller's model is only read, and does not pay for evaluation on every move.
+	private final Model game;
+	private final Model model = new Model();
+
+	// Positions searched before, shared between moves of the same game. A position and its mirror image share an
+	// entry, stored under the model's canonical hash with the best move in the canonical orientation.
+	private TranspositionTable table;
+
+	// Search depth in plies, and the time limit for each move (0 means depth only).
+	// The time limit is a hard deadline: a depth still being searched when it passes is abandoned.
+	private int maxDepth = DEFAULT_MAX_DEPTH;
+	private long timeBudgetMillis = DEFAULT_TIME_BUDGET_MILLIS;
+
+	// Columns from the centre outwards, the fallback move if no depth is completed. Rebuilt if the board is resized.
+	private int[] moveOrder = new int[0];
+
+	// Decides which moves of each position are searched first
+	private final MoveOrdering ordering = new MoveOrdering();
+
+	// Set by another thread to abandon the search
+	private volatile boolean stopped;
+
+	// Set by the search itself once the deadline (from System.nanoTime) has passed, if it has one
+	private boolean timed;
+	private long deadline;
+	private boolean timedOut;
+
+	// Number of positions visited by the last search, how long it took, the depth it completed
+	// and the score of the best move at that depth
+	private long nodes;
+	private long elapsedNanos;
+	private int completedDepth;
+	private int bestScore;
+
+	// =============================================================================
+	// ================================ CONSTRUCTOR ================================
+	// =============================================================================
+	public NegamaxSearch(Model model){
+		this(model, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MEGABYTES));
+	}
+
+	public NegamaxSearch(Model model, TranspositionTable table){
+		this.game = model;
+		this.table = table;
+
+		// Positions at the end of the search are scored by the copy's evaluator
+		this.model.setEvaluationEnabled(true);
+	}
+
+	// ========================================================================
+	// ================================ SEARCH ================================
+	// ========================================================================
+	public int bestMove(){
+		// Searches one ply deeper at a time until maxDepth is reached or the time limit runs out, returning the best
+		// column found by the deepest completed search. A depth cut short by the time limit is ignored.
+		// The caller's model is never changed, since the search plays its moves on a copy.
+		model.copyFrom(game);
+		updateMoveOrder();
+		ordering.prepare(model, maxDepth + 1);
+		ordering.clear();
+		nodes = 0;
+		completedDepth = 0;
+
+		long start = System.nanoTime();
+		int bestCol = firstValidMove();
+
+		// The first depth is always finished, so even the shortest time limit gets a move which takes an immediate win
+		timed = false;
+		timedOut = false;
+		deadline = start + timeBudgetMillis * 1_000_000;
+
+		for(int depth = 1; depth <= maxDepth; depth++){
+			int col = searchRoot(depth);
+			if(stopped || timedOut){
+				break;
+			}
+			bestCol = col;
+			completedDepth = depth;
+
+			if(timeBudgetMillis > 0){
+				if(System.nanoTime() - deadline >= 0){
+					break;
+				}
+				timed = true;
+			}
+		}
+
+		elapsedNanos = System.nanoTime() - start;
+		return bestCol;
+	}
+
+	public int searchDepth(int depth){
+		// A single search to a fixed depth, used by the helper threads of ParallelSearch.
+		// Killers and history carry over from one depth to the next, as they do in bestMove.
+		model.copyFrom(game);
+		updateMoveOrder();
+		ordering.prepare(model, depth + 1);
+		return searchRoot(depth);
+	}
+
+	public void stop(){
+		// Called from another thread. The search then unwinds straight away without storing anything it has not finished.
+		stopped = true;
+	}
+
+	private int searchRoot(int depth){
+		// Same as negamax, but keeps track of which column gave the best score
+		int alpha = -INFINITY;
+		int bestCol = firstValidMove();
+
+		// The best move of the previous, shallower search is likely to still be best, so it is tried first
+		int hashMove = ordering.hashMove(model, hashMove());
+		if(hashMove != -1){
+			alpha = scoreMove(hashMove, depth, 1, alpha, INFINITY);
+			bestCol = hashMove;
+		}
+
+		int count = ordering.order(model, 0, depth, hashMove);
+		int[] moves = ordering.moves(0);
+
+		for(int i = 0; i < count; i++){
+			int col = moves[i];
+			int score = scoreMove(col, depth, 1, alpha, INFINITY);
+			if(stopped || timedOut){
+				break;
+			}
+
+			if(score > alpha){
+				alpha = score;
+				bestCol = col;
+			}
+		}
+
+		if(!stopped && !timedOut){
+			table.store(model.getCanonicalHash(), alpha, model.canonicalColumn(bestCol), depth, TranspositionTable.BOUND_EXACT);
+			bestScore = alpha;
+		}
+		return bestCol;
+	}
+
+	private int negamax(int depth, int ply, int alpha, int beta){
+		// Returns the score of the position from the point of view of the player to move, ply moves below the root.
+		// Scores outside the (alpha, beta) window are only bounds, which is all the caller needs.
+		nodes++;
+
+		// Only the node count is checked on most positions, the clock is read now and then
+		if(timed && (nodes & CLOCK_CHECK_MASK) == 0 && System.nanoTime() - deadline >= 0){
+			timedOut = true;
+		}
+		if(stopped || timedOut){
+			return 0;
+		}
+		if(depth == 0){
+			return model.evaluate();
+		}
+
+		// A previous search of this position may already answer the question, or at least suggest a good first move
+		long key = model.getCanonicalHash();
+		long entry = table.probe(key);
+		int hashMove = -1;
+
+		if(entry != TranspositionTable.NO_ENTRY){
+			hashMove = model.canonicalColumn(TranspositionTable.moveOf(entry));
+
+			if(TranspositionTable.depthOf(entry) >= depth){
+				int storedScore = TranspositionTable.scoreOf(entry);
+				int bound = TranspositionTable.boundOf(entry);
+
+				if(bound == TranspositionTable.BOUND_EXACT
+						|| (bound == TranspositionTable.BOUND_LOWER && storedScore >= beta)
+						|| (bound == TranspositionTable.BOUND_UPPER && storedScore <= alpha)){
+					return storedScore;
+				}
+			}
+		}
+
+		int originalAlpha = alpha;
+		int best = -INFINITY;
+		int bestCol = -1;
+
+		hashMove = ordering.hashMove(model, hashMove);
+		if(hashMove != -1){
+			best = scoreMove(hashMove, depth, ply + 1, alpha, beta);
+			bestCol = hashMove;
+
+			// A stopped search returns made up scores, which must not end up in the table or teach the move ordering
+			if(stopped || timedOut){
+				return 0;
+			}
+			if(best > alpha){
+				alpha = best;
+			}
+			if(alpha >= beta){
+				ordering.cutoff(model, ply, hashMove, depth);
+			}
+		}
+
+		// The rest of the moves are only put in order if the table's move did not already refute the position
+		int count = alpha >= beta ? 0 : ordering.order(model, ply, depth, hashMove);
+		int[] moves = ordering.moves(ply);
+
+		for(int i = 0; i < count; i++){
+			int col = moves[i];
+			int score = scoreMove(col, depth, ply + 1, alpha, beta);
+			if(stopped || timedOut){
+				return 0;
+			}
+			if(score > best){
+				best = score;
+				bestCol = col;
+			}
+			if(score > alpha){
+				alpha = score;
+			}
+			if(alpha >= beta){
+				// The opponent will never allow this position, so the remaining moves need not be searched
+				ordering.cutoff(model, ply, col, depth);
+				break;
+			}
+		}
+
+		int bound;
+		if(best <= originalAlpha){
+			bound = TranspositionTable.BOUND_UPPER;
+		} else if(best >= beta){
+			bound = TranspositionTable.BOUND_LOWER;
+		} else {
+			bound = TranspositionTable.BOUND_EXACT;
+		}
+		table.store(key, best, model.canonicalColumn(bestCol), depth, bound);
+
+		return best;
+	}
+
+	private int scoreMove(int col, int depth, int ply, int alpha, int beta){
+		// Plays a move, scores it for the player who made it and takes it back again. ply is the ply of the new position.
+		model.makeMove(col);
+
+		int score;
+		if(model.isGameWon(col)){
+			score = WIN_SCORE - model.getNumberOfPieces();
+		} else if(model.isBoardFull()){
+			score = 0;
+		} else {
+			score = -negamax(depth - 1, ply, -beta, -alpha);
+		}
+
+		model.undoLast();
+		return score;
+	}
+
+	// ========================================================================
+	// ================================ HELPERS ===============================
+	// ========================================================================
+	private void updateMoveOrder(){
+		// Centre columns take part in the most lines, so searching them first gives the earliest cutoffs
+		// e.g. with 7 columns the order is 3, 2, 4, 1, 5, 0, 6
+		int nrCols = model.getNrCols();
+		if(moveOrder.length != nrCols){
+			moveOrder = centreFirstOrder(nrCols);
+		}
+	}
+
+	public static int[] centreFirstOrder(int nrCols){
+		int[] order = new int[nrCols];
+		for(int i = 0; i < nrCols; i++){
+			order[i] = nrCols / 2 + (1 - 2 * (i % 2)) * (i + 1) / 2;
+		}
+		return order;
+	}
+
+	private int hashMove(){
+		// The best move stored for the model's position, if it is still playable
+		long entry = table.probe(model.getCanonicalHash());
+		if(entry == TranspositionTable.NO_ENTRY){
+			return -1;
+		}
+
+		int col = model.canonicalColumn(TranspositionTable.moveOf(entry));
+		return model.isMoveValid(col) ? col : -1;
+	}
+
+	private int firstValidMove(){
+		for(int col : moveOrder){
+			if(model.isMoveValid(col)){
+				return col;
+			}
+		}
+		return -1;
+	}
+
+	// =========================================================================
+	// ================================ GETTERS ================================
+	// =========================================================================
+	public long getNodes(){ return nodes; }
+
+	public long getElapsedMillis(){ return elapsedNanos / 1_000_000; }
+
+	public double getNodesPerSecond(){ return nodes * 1e9 / Math.max(1, elapsedNanos); }
+
+	public int getCompletedDepth(){ return completedDepth; }
+
+	public int getBestScore(){ return bestScore; }
+
+	public boolean isStopped(){ return stopped; }
+
+	public int getMaxDepth(){ return maxDepth; }
+
+	public long getTimeBudgetMillis(){ return timeBudgetMillis; }
+
+	public TranspositionTable getTable(){ return table; }
+
+	public MoveOrdering getOrdering(){ return ordering; }
+
+	// =========================================================================
+	// ================================ SETTERS ================================
+	// =========================================================================
+	public void setMaxDepth(int depth){ maxDepth = depth; }
+
+	public void setTimeBudgetMillis(long millis){ timeBudgetMillis = millis; }
+
+	public void setTable(TranspositionTable table){ this.table = table; }
+}
@@ -0,0 +1,228 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public final class OpeningBook
+{
+	// The opening book holds the best move for every position in the first few moves of the game, worked out ahead of
+	// time by OpeningBook.main. The file is a header followed by fixed size entries sorted by position hash:
+	//
+	//   header: magic "C4BK" | version | rows | cols | numberToWin | book plies | search depth | entry count   (8 ints)
+	//   entry:  position hash (long) | score (int) | column (short) | unused (short)                           (16 bytes)
+	//
+	// A position and its mirror image share one entry, under the position's canonical hash, with the column given in
+	// the canonical orientation (see Model.getCanonicalHash). This roughly halves the size of the book.
+	//
+	// Generate a book with: java -cp target/classes OpeningBook [book plies] [search depth] [rows] [cols] [numberToWin]
+
+	// ===========================================================================
+	// ================================ CONSTANTS ================================
+	// ===========================================================================
+	public static final String DIRECTORY = "openingBook";
+
+	public static final int DEFAULT_BOOK_PLIES = 8;
+	public static final int DEFAULT_SEARCH_DEPTH = 16;
+
+	private static final int MAGIC = 0x43344243; // "C4BK"
+	// Version 1 books stored every position under its own hash, and are no longer read
+	private static final int VERSION = 2;
+	private static final int HEADER_BYTES = 8 * Integer.BYTES;
+	private static final int ENTRY_BYTES = 16;
+
+	// ========================================================================
+	// ================================ FIELDS ================================
+	// ========================================================================
+	private final MappedByteBuffer entries;
+	private final int entryCount;
+	private final int nrRows;
+	private final int nrCols;
+	private final int numberToWin;
+
+	// =============================================================================
+	// ================================ CONSTRUCTOR ================================
+	// =============================================================================
+	private OpeningBook(MappedByteBuffer buffer, int nrRows, int nrCols, int numberToWin, int entryCount){
+		this.entries = buffer;
+		this.nrRows = nrRows;
+		this.nrCols = nrCols;
+		this.numberToWin = numberToWin;
+		this.entryCount = entryCount;
+	}
+
+	public static OpeningBook open(Model model){
+		// Memory maps the book for the model's board size and number to win.
+		// Returns null if there is no book for that game, or the file is not a valid book for it.
+		File file = fileFor(model.getNrRows(), model.getNrCols(), model.getNumberToWin());
+		if(!file.isFile()){
+			return null;
+		}
+
+		try(RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()){
+			// The mapping stays valid after the channel is closed
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			if(buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION){
+				return null;
+			}
+
+			int rows = buffer.getInt(8);
+			int cols = buffer.getInt(12);
+			int toWin = buffer.getInt(16);
+			int count = buffer.getInt(28);
+
+			boolean sameGame = rows == model.getNrRows() && cols == model.getNrCols() && toWin == model.getNumberToWin();
+			if(!sameGame || buffer.capacity() != HEADER_BYTES + (long) count * ENTRY_BYTES){
+				return null;
+			}
+
+			return new OpeningBook(buffer, rows, cols, toWin, count);
+		} catch (IOException e) {
+			System.out.println("The opening book could not be read: " + e.getMessage());
+			return null;
+		}
+	}
+
+	public static File fileFor(int rows, int cols, int numberToWin){
+		// e.g. openingBook/6x7-connect4.bin
+		return new File(DIRECTORY + File.separator + rows + "x" + cols + "-connect" + numberToWin + ".bin");
+	}
+
+	// ========================================================================
+	// ================================ LOOKUP ================================
+	// ========================================================================
+	public boolean matches(Model model){
+		// The book only applies to the game it was built for
+		return model.getNrRows() == nrRows && model.getNrCols() == nrCols && model.getNumberToWin() == numberToWin;
+	}
+
+	public int lookup(Model model){
+		// Binary search for the model's position, returning its best column or -1 if the position is not in the book
+		int index = find(model.getCanonicalHash());
+		return index < 0 ? -1 : model.canonicalColumn(entries.getShort(HEADER_BYTES + index * ENTRY_BYTES + 12));
+	}
+
+	public int score(Model model){
+		// Score of the best move from the point of view of the player to move, only meaningful if lookup found the position
+		int index = find(model.getCanonicalHash());
+		return index < 0 ? 0 : entries.getInt(HEADER_BYTES + index * ENTRY_BYTES + 8);
+	}
+
+	private int find(long key){
+		int low = 0;
+		int high = entryCount - 1;
+		while(low <= high){
+			int mid = (low + high) >>> 1;
+			long midKey = entries.getLong(HEADER_BYTES + mid * ENTRY_BYTES);
+			if(midKey < key){
+				low = mid + 1;
+			} else if(midKey > key){
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	public int size(){ return entryCount; }
+
+	// ========================================================================
+	// ================================ GENERATOR =============================
+	// ========================================================================
+	public static void main(String[] args) throws IOException {
+		int bookPlies = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_BOOK_PLIES;
+		int searchDepth = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SEARCH_DEPTH;
+		int rows = args.length > 2 ? Integer.parseInt(args[2]) : Model.DEFAULT_NR_ROWS;
+		int cols = args.length > 3 ? Integer.parseInt(args[3]) : Model.DEFAULT_NR_COLS;
+		int numberToWin = args.length > 4 ? Integer.parseInt(args[4]) : Model.DEFAULT_NUMBER_TO_WIN;
+
+		Model model = new Model();
+		model.setRows(rows);
+		model.setCols(cols);
+		model.setNumberToWin(numberToWin);
+		model.wipeBoard();
+
+		File file = fileFor(rows, cols, numberToWin);
+		long start = System.currentTimeMillis();
+		int written = generate(model, bookPlies, searchDepth, file);
+		System.out.println("Wrote " + written + " positions to " + file + " in " + (System.currentTimeMillis() - start) / 1000 + " s");
+	}
+
+	public static int generate(Model model, int bookPlies, int searchDepth, File file) throws IOException {
+		// Collects every position in the next bookPlies moves from the model's position, searches each one
+		// to searchDepth and writes the results as a sorted book. Returns the number of positions written.
+
+		List<Long> keys = new ArrayList<>();
+		List<Integer> moves = new ArrayList<>();
+		List<Integer> scores = new ArrayList<>();
+
+		// One large table shared by every search, since neighbouring book positions share most of their subtrees
+		TranspositionTable table = new TranspositionTable(256);
+		NegamaxSearch search = new NegamaxSearch(model, table);
+		search.setMaxDepth(searchDepth);
+		search.setTimeBudgetMillis(0);
+
+		collect(model, bookPlies, new HashSet<>(), search, keys, moves, scores);
+
+		// Sort the entries by key, so the book can be searched with a binary search
+		Integer[] order = new Integer[keys.size()];
+		for(int i = 0; i < order.length; i++){
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Long.compare(keys.get(a), keys.get(b)));
+
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + order.length * ENTRY_BYTES);
+		buffer.putInt(MAGIC).putInt(VERSION)
+				.putInt(model.getNrRows()).putInt(model.getNrCols()).putInt(model.getNumberToWin())
+				.putInt(bookPlies).putInt(searchDepth).putInt(order.length);
+		for(int i : order){
+			buffer.putLong(keys.get(i)).putInt(scores.get(i)).putShort((short) (int) moves.get(i)).putShort((short) 0);
+		}
+		buffer.flip();
+
+		file.getParentFile().mkdirs();
+		try(RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()){
+			channel.truncate(0);
+			while(buffer.hasRemaining()){
+				channel.write(buffer);
+			}
+		}
+		return order.length;
+	}
+
+	private static void collect(Model model, int pliesLeft, Set<Long> seen, NegamaxSearch search,
+								List<Long> keys, List<Integer> moves, List<Integer> scores){
+		// Depth first walk over the opening, visiting each position only once however many move orders reach it.
+		// A mirror image counts as the same position, since its moves are the mirror images of this one's.
+		if(pliesLeft == 0 || !seen.add(model.getCanonicalHash())){
+			return;
+		}
+
+		keys.add(model.getCanonicalHash());
+		moves.add(model.canonicalColumn(search.bestMove()));
+		scores.add(search.getBestScore());
+
+		if(keys.size() % 1000 == 0){
+			System.out.println(keys.size() + " positions searched");
+		}
+
+		for(int c = 0; c < model.getNrCols(); c++){
+			if(!model.isMoveValid(c)){
+				continue;
+			}
+			model.makeMove(c);
+			if(!model.isGameWon(c) && !model.isBoardFull()){
+				collect(model, pliesLeft - 1, seen, search, keys, moves, scores);
+			}
+			model.undoLast();
+		}
+	}
+}
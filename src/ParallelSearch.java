@@ -0,0 +1,119 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public final class ParallelSearch
+{
+	// ========================================================================
+	// ================================ FIELDS ================================
+	// ========================================================================
+	private final Model model;
+
+	// Shared by every thread, so a position searched by one thread is not searched again by another
+	private final TranspositionTable table;
+
+	private final ForkJoinPool pool;
+
+	private int maxDepth = NegamaxSearch.DEFAULT_MAX_DEPTH;
+	private long timeBudgetMillis = NegamaxSearch.DEFAULT_TIME_BUDGET_MILLIS;
+
+	// Totals over every thread for the last search
+	private long nodes;
+	private long elapsedNanos;
+	private int completedDepth;
+	private int bestScore;
+
+	// =============================================================================
+	// ================================ CONSTRUCTOR ================================
+	// =============================================================================
+	public ParallelSearch(Model model, TranspositionTable table, int threads){
+		this.model = model;
+		this.table = table;
+		this.pool = new ForkJoinPool(threads);
+	}
+
+	// ========================================================================
+	// ================================ SEARCH ================================
+	// ========================================================================
+	public int bestMove(){
+		// Lazy SMP: the calling thread runs the normal iterative deepening search, while the helper threads search the
+		// same position at their own pace and fill the shared transposition table. The helpers alternate between
+		// starting one and two plies deep, so they tend to be working ahead of the main search rather than alongside it.
+		// Every search plays its moves on its own copy of the model, so the real model is only read.
+
+		long start = System.nanoTime();
+		int helpers = pool.getParallelism() - 1;
+		List<NegamaxSearch> helperSearches = new ArrayList<>();
+		List<Future<?>> helperTasks = new ArrayList<>();
+
+		for(int i = 0; i < helpers; i++){
+			NegamaxSearch helper = new NegamaxSearch(model, table);
+			int firstDepth = 1 + i % 2;
+			helperSearches.add(helper);
+			helperTasks.add(pool.submit(() -> {
+				for(int depth = firstDepth; depth <= maxDepth && !helper.isStopped(); depth++){
+					helper.searchDepth(depth);
+				}
+			}));
+		}
+
+		NegamaxSearch main = new NegamaxSearch(model, table);
+		main.setMaxDepth(maxDepth);
+		main.setTimeBudgetMillis(timeBudgetMillis);
+		int col = main.bestMove();
+
+		// The answer only comes from the main search, the helpers are stopped as soon as it is done
+		nodes = main.getNodes();
+		completedDepth = main.getCompletedDepth();
+		bestScore = main.getBestScore();
+
+		for(NegamaxSearch helper : helperSearches){
+			helper.stop();
+		}
+		for(int i = 0; i < helpers; i++){
+			waitFor(helperTasks.get(i));
+			nodes += helperSearches.get(i).getNodes();
+		}
+		elapsedNanos = System.nanoTime() - start;
+
+		return col;
+	}
+
+	private static void waitFor(Future<?> task){
+		try {
+			task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Search thread failed", e.getCause());
+		}
+	}
+
+	public void shutdown(){
+		pool.shutdown();
+	}
+
+	// =========================================================================
+	// ================================ GETTERS ================================
+	// =========================================================================
+	public long getNodes(){ return nodes; }
+
+	public long getElapsedMillis(){ return elapsedNanos / 1_000_000; }
+
+	public double getNodesPerSecond(){ return nodes * 1e9 / Math.max(1, elapsedNanos); }
+
+	public int getCompletedDepth(){ return completedDepth; }
+
+	public int getBestScore(){ return bestScore; }
+
+	public int getThreads(){ return pool.getParallelism(); }
+
+	// =========================================================================
+	// ================================ SETTERS ================================
+	// =========================================================================
+	public void setMaxDepth(int depth){ maxDepth = depth; }
+
+	public void setTimeBudgetMillis(long millis){ timeBudgetMillis = millis; }
+}
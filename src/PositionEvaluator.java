@@ -0,0 +1,365 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+public final class PositionEvaluator
+{
+	// Finds the best move and score for many positions at once, spread over a pool of threads. Positions are written
+	// one to a line, with the rows of the board from top to bottom in the same 0/1/2 encoding as saved boards, joined
+	// by '/', and optionally followed by a space and the number to win. For example, the board in savedBoards/hyman.txt:
+	//
+	//   0000000/0000000/0000000/0000000/0000000/1200001
+	//
+	// Blank lines and lines starting with '#' are skipped. Results come out in the same order as the positions,
+	// while only a few positions per thread are held in memory at a time, so inputs of any length can be streamed.
+	//
+	// Usage: java -jar connect-four.jar evaluate <file, or - for standard input> [--output file] [--depth n] [--time ms]
+	//            [--threads n] [--win n]
+
+	// ===========================================================================
+	// ================================ CONSTANTS ================================
+	// ===========================================================================
+	public static final int DEFAULT_SEARCH_DEPTH = 10;
+
+	// How many positions may be waiting or being evaluated for each thread
+	private static final int POSITIONS_IN_FLIGHT_PER_THREAD = 4;
+
+	// Kept small, since it is cleared before every position
+	private static final int TABLE_SIZE_MEGABYTES = 2;
+
+	public static final String HEADER = "line\tcolumn\tscore\tresult\tdepth\tnodes\tmillis";
+
+	// ========================================================================
+	// ================================ TYPES =================================
+	// ========================================================================
+	public static final class Evaluation
+	{
+		private final long lineNumber;
+		private final int column;
+		private final int score;
+		private final int depth;
+		private final long nodes;
+		private final long millis;
+		private final int discs;
+		private final String error;
+
+		private Evaluation(long lineNumber, int column, int score, int depth, long nodes, long millis, int discs, String error){
+			this.lineNumber = lineNumber;
+			this.column = column;
+			this.score = score;
+			this.depth = depth;
+			this.nodes = nodes;
+			this.millis = millis;
+			this.discs = discs;
+			this.error = error;
+		}
+
+		private static Evaluation failed(long lineNumber, String error){
+			return new Evaluation(lineNumber, -1, 0, 0, 0, 0, 0, error);
+		}
+
+		public long getLineNumber(){ return lineNumber; }
+
+		// Best column, counting from 0, or -1 if the position could not be evaluated
+		public int getColumn(){ return column; }
+
+		// Score for the player to move, on the scale of NegamaxSearch
+		public int getScore(){ return score; }
+
+		public int getDepth(){ return depth; }
+
+		public long getNodes(){ return nodes; }
+
+		public long getMillis(){ return millis; }
+
+		// Why the position could not be evaluated, or null if it was
+		public String getError(){ return error; }
+
+		public String getResult(){
+			// The outcome the search found, e.g. "win in 3" counting the discs from now until the winning one
+			if(error != null){
+				return "error: " + error;
+			}
+			int winningDiscs = NegamaxSearch.WIN_SCORE - Math.abs(score);
+			if(winningDiscs > discs && winningDiscs <= NegamaxSearch.WIN_SCORE / 2){
+				return (score > 0 ? "win in " : "loss in ") + (winningDiscs - discs);
+			}
+			return "unclear";
+		}
+
+		@Override
+		public String toString(){
+			// A line of the output, in the order of HEADER. Columns count from 1, as in the game.
+			if(error != null){
+				return lineNumber + "\t\t\t" + getResult() + "\t\t\t";
+			}
+			return lineNumber + "\t" + (column + 1) + "\t" + score + "\t" + getResult() + "\t" + depth + "\t" + nodes + "\t" + millis;
+		}
+	}
+
+	// Everything one thread needs to evaluate positions, created once per thread and reused for every position
+	private final class Worker
+	{
+		final Model model = new Model();
+		final ComputerPlayer computer = new ComputerPlayer(model, TABLE_SIZE_MEGABYTES);
+
+		Worker(){
+			computer.setStrategy(ComputerPlayer.Strategy.SEARCH);
+			computer.setSearchDepth(searchDepth);
+			computer.setTimeBudgetMillis(timeLimitMillis);
+		}
+	}
+
+	// ========================================================================
+	// ================================ FIELDS ================================
+	// ========================================================================
+	private final int threads;
+	private final int searchDepth;
+	private final long timeLimitMillis;
+	private final int defaultNumberToWin;
+
+	private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+	// =============================================================================
+	// ================================ CONSTRUCTOR ================================
+	// =============================================================================
+	public PositionEvaluator(int threads, int searchDepth, long timeLimitMillis, int defaultNumberToWin){
+		// timeLimitMillis of 0 searches every position to searchDepth however long it takes.
+		// defaultNumberToWin is used for positions which do not give their own.
+		this.threads = threads;
+		this.searchDepth = searchDepth;
+		this.timeLimitMillis = timeLimitMillis;
+		this.defaultNumberToWin = defaultNumberToWin;
+	}
+
+	// ========================================================================
+	// ================================ EVALUATION ============================
+	// ========================================================================
+	public Evaluation evaluate(long lineNumber, String position){
+		// Evaluates a single position on the calling thread
+		Worker worker = workers.get();
+		Model model = worker.model;
+
+		String error = load(position, model);
+		if(error != null){
+			return Evaluation.failed(lineNumber, error);
+		}
+
+		// Every position starts from an empty table, so its result does not depend on which positions came before it
+		worker.computer.getTranspositionTable().clear();
+
+		long start = System.currentTimeMillis();
+		int col = worker.computer.computeMove();
+		long millis = System.currentTimeMillis() - start;
+
+		return new Evaluation(lineNumber, col, worker.computer.getLastScore(), worker.computer.getLastDepth(),
+				worker.computer.getLastNodes(), millis, model.getNumberOfPieces(), null);
+	}
+
+	public List<Evaluation> evaluateAll(List<String> positions) throws IOException, InterruptedException {
+		// Evaluates a list of positions in parallel, returning the results in the same order.
+		// Each position is its own line, so line numbers in the results count from 1 through the list.
+		List<Evaluation> results = new ArrayList<>(positions.size());
+		evaluateAll(new BufferedReader(new StringReader(String.join("\n", positions))), results::add);
+		return results;
+	}
+
+	public void evaluateAll(BufferedReader in, Consumer<Evaluation> out) throws IOException, InterruptedException {
+		// Reads positions until the end of the input, handing each result to out in the order the positions were read.
+		// Reading stops while the oldest position is still being worked on and enough others are queued behind it.
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ArrayDeque<Future<Evaluation>> pending = new ArrayDeque<>();
+		int maxPending = threads * POSITIONS_IN_FLIGHT_PER_THREAD;
+
+		try {
+			long lineNumber = 0;
+			String line;
+			while((line = in.readLine()) != null){
+				lineNumber++;
+				String position = line.trim();
+				if(position.isEmpty() || position.startsWith("#")){
+					continue;
+				}
+
+				long number = lineNumber;
+				pending.add(pool.submit(() -> evaluate(number, position)));
+
+				if(pending.size() >= maxPending){
+					out.accept(result(pending.poll()));
+				}
+			}
+
+			while(!pending.isEmpty()){
+				out.accept(result(pending.poll()));
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static Evaluation result(Future<Evaluation> future) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Evaluating a position failed", e.getCause());
+		}
+	}
+
+	// ========================================================================
+	// ================================ PARSING ===============================
+	// ========================================================================
+	private String load(String position, Model model){
+		// Sets the model up from an encoded position, returning why it cannot be evaluated, or null if it can
+		String board = position;
+		int numberToWin = defaultNumberToWin;
+
+		int space = position.indexOf(' ');
+		if(space >= 0){
+			board = position.substring(0, space);
+			try {
+				numberToWin = Integer.parseInt(position.substring(space + 1).trim());
+			} catch (NumberFormatException e) {
+				return "the number to win is not a number";
+			}
+		}
+
+		String[] rows = board.split("/");
+		int nrRows = rows.length;
+		int nrCols = rows[0].length();
+		for(String row : rows){
+			if(row.length() != nrCols || nrCols == 0){
+				return "the rows are not all the same length";
+			}
+		}
+		if(!Model.isValidSize(nrRows, nrCols)){
+			return "the board is too big";
+		}
+		if(numberToWin < 2 || numberToWin > Math.min(nrRows, nrCols)){
+			return "the number to win does not fit on the board";
+		}
+
+		model.setRows(nrRows);
+		model.setCols(nrCols);
+		model.setNumberToWin(numberToWin);
+		model.wipeBoard();
+
+		int numberOfPlayerOneDiscs = 0;
+		int numberOfPlayerTwoDiscs = 0;
+		for(int r = 0; r < nrRows; r++){
+			for(int c = 0; c < nrCols; c++){
+				char character = rows[r].charAt(c);
+				if(character == '1'){
+					numberOfPlayerOneDiscs++;
+					model.setBoard(r, c, Model.playerOne);
+				} else if(character == '2'){
+					numberOfPlayerTwoDiscs++;
+					model.setBoard(r, c, Model.playerTwo);
+				} else if(character != '0'){
+					return "unexpected character '" + character + "'";
+				}
+			}
+		}
+
+		int difference = numberOfPlayerOneDiscs - numberOfPlayerTwoDiscs;
+		if(difference != 0 && difference != 1){
+			return "player one must have the same number of discs as player two, or one more";
+		}
+
+		// Every disc must rest on another one or the bottom of the board. The column heights only count discs
+		// resting on the bottom, so any disc above them is floating.
+		int discs = numberOfPlayerOneDiscs + numberOfPlayerTwoDiscs;
+		int supported = 0;
+		for(int c = 0; c < nrCols; c++){
+			supported += model.getHeight(c);
+		}
+		if(supported != discs){
+			return "a disc is floating above an empty space";
+		}
+
+		model.setNumberOfPieces(discs);
+		if(difference == 1){
+			model.reverseTurn();
+		}
+
+		// The last move made in any real game is on top of its column, so checking the top discs finds a finished game
+		if(model.isBoardFull()){
+			return "the board is full";
+		}
+		for(int c = 0; c < nrCols; c++){
+			if(model.isGameWon(c)){
+				return "the game is already won";
+			}
+		}
+		return null;
+	}
+
+	// ========================================================================
+	// ================================ COMMAND LINE ==========================
+	// ========================================================================
+	public static void main(String[] args) throws Exception {
+		if(args.length == 0){
+			printUsage();
+			return;
+		}
+
+		String input = args[0];
+		String output = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int depth = DEFAULT_SEARCH_DEPTH;
+		long time = 0;
+		int numberToWin = Model.DEFAULT_NUMBER_TO_WIN;
+
+		try {
+			for(int i = 1; i < args.length; i += 2){
+				String value = i + 1 < args.length ? args[i + 1] : "";
+				switch(args[i]){
+					case "--output":  output = value; break;
+					case "--threads": threads = Integer.parseInt(value); break;
+					case "--depth":   depth = Integer.parseInt(value); break;
+					case "--time":    time = Long.parseLong(value); break;
+					case "--win":     numberToWin = Integer.parseInt(value); break;
+					default:
+						System.out.println("Unknown option " + args[i]);
+						printUsage();
+						return;
+				}
+			}
+		} catch (NumberFormatException e) {
+			System.out.println(e.getMessage());
+			printUsage();
+			return;
+		}
+
+		PositionEvaluator evaluator = new PositionEvaluator(Math.max(1, threads), depth, time, numberToWin);
+
+		try (BufferedReader in = new BufferedReader(input.equals("-") ? new InputStreamReader(System.in) : new FileReader(input));
+			 Writer out = new BufferedWriter(output == null ? new OutputStreamWriter(System.out) : new FileWriter(output))) {
+			out.write(HEADER + "\n");
+			evaluator.evaluateAll(in, evaluation -> {
+				try {
+					out.write(evaluation.toString() + "\n");
+				} catch (IOException e) {
+					throw new IllegalStateException("Could not write the results", e);
+				}
+			});
+		}
+	}
+
+	private static void printUsage(){
+		System.out.println("Usage: evaluate <file, or - for standard input> [--output file] [--depth n] [--time ms] [--threads n] [--win n]");
+	}
+}
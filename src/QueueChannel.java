@@ -0,0 +1,78 @@
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+public final class QueueChannel implements GameChannel
+{
+	// A channel between a session and a player in the same JVM, such as a simulated client in LoadGenerator.
+	// The session uses the GameChannel methods, and the player uses send and receive. Everything the session prints
+	// between two questions is delivered as one message, so each line the player sends gets exactly one reply.
+
+	// ===========================================================================
+	// ================================ CONSTANTS ================================
+	// ===========================================================================
+	// Marks the end of either queue. A new String, so it can be told apart from a real line by identity.
+	private static final String CLOSED = new String("");
+
+	// ========================================================================
+	// ================================ FIELDS ================================
+	// ========================================================================
+	private final BlockingQueue<String> toSession = new LinkedBlockingQueue<>();
+	private final BlockingQueue<String> toPlayer = new LinkedBlockingQueue<>();
+
+	// Output printed by the session since it last asked a question. Only the session's thread touches it.
+	private final StringBuilder pending = new StringBuilder();
+
+	// ========================================================================
+	// ================================ SESSION SIDE ==========================
+	// ========================================================================
+	@Override
+	public String readLine(){
+		// Returns null if the player has hung up, or the waiting thread is interrupted
+		toPlayer.add(pending.toString());
+		pending.setLength(0);
+		try {
+			String line = toSession.take();
+			return line == CLOSED ? null : line;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
+	@Override
+	public void print(String text){
+		pending.append(text);
+	}
+
+	@Override
+	public void close(){
+		if(pending.length() > 0){
+			toPlayer.add(pending.toString());
+			pending.setLength(0);
+		}
+		toPlayer.add(CLOSED);
+	}
+
+	// ========================================================================
+	// ================================ PLAYER SIDE ===========================
+	// ========================================================================
+	public void send(String line){
+		toSession.add(line);
+	}
+
+	public String receive() throws InterruptedException {
+		// Waits for the session's reply to the last line sent, or its opening message. Returns null once the session is over.
+		String message = toPlayer.take();
+		if(message == CLOSED){
+			// Later calls see the end as well
+			toPlayer.add(CLOSED);
+			return null;
+		}
+		return message;
+	}
+
+	public void hangUp(){
+		// The session sees the end of its input, as if the player had closed the connection
+		toSession.add(CLOSED);
+	}
+}
@@ -0,0 +1,219 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+public final class SaveCatalog
+{
+	// Catalog of the saved boards, replacing validFilenames.txt. The catalog file is append only, with a line per save:
+	//
+	//   name <tab> rows <tab> cols <tab> numberToWin <tab> pieces <tab> time saved (milliseconds since 1970)
+	//
+	// Saving over an existing name appends another line, and the last line for a name is the one that counts.
+	// The file is read once when the catalog is opened and indexed by name, so lookups never go back to the disk.
+
+	// ===========================================================================
+	// ================================ CONSTANTS ================================
+	// ===========================================================================
+	public static final String FILENAME = "catalog.tsv";
+
+	private static final String LEGACY_FILENAME = "validFilenames";
+
+	// ========================================================================
+	// ================================ TYPES =================================
+	// ========================================================================
+	public static final class Entry
+	{
+		private final String name;
+		private final int nrRows;
+		private final int nrCols;
+		private final int numberToWin;
+		private final int numberOfPieces;
+		private final long savedAtMillis;
+
+		Entry(String name, int nrRows, int nrCols, int numberToWin, int numberOfPieces, long savedAtMillis){
+			this.name = name;
+			this.nrRows = nrRows;
+			this.nrCols = nrCols;
+			this.numberToWin = numberToWin;
+			this.numberOfPieces = numberOfPieces;
+			this.savedAtMillis = savedAtMillis;
+		}
+
+		public String getName(){ return name; }
+
+		public int getNrRows(){ return nrRows; }
+
+		public int getNrCols(){ return nrCols; }
+
+		public int getNumberToWin(){ return numberToWin; }
+
+		public int getNumberOfPieces(){ return numberOfPieces; }
+
+		public long getSavedAtMillis(){ return savedAtMillis; }
+
+		public boolean matches(Model model){
+			// True if the save is for the same board size and number to win as the model
+			return nrRows == model.getNrRows() && nrCols == model.getNrCols() && numberToWin == model.getNumberToWin();
+		}
+
+		private String toLine(){
+			return name + "\t" + nrRows + "\t" + nrCols + "\t" + numberToWin + "\t" + numberOfPieces + "\t" + savedAtMillis + "\n";
+		}
+
+		private static Entry fromLine(String line){
+			// Returns null for a line which cannot be read, such as one cut short when the program was stopped mid save
+			String[] fields = line.split("\t");
+			if(fields.length != 6 || !isValidName(fields[0])){
+				return null;
+			}
+			try {
+				return new Entry(fields[0], Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+						Integer.parseInt(fields[3]), Integer.parseInt(fields[4]), Long.parseLong(fields[5]));
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+	}
+
+	// ========================================================================
+	// ================================ FIELDS ================================
+	// ========================================================================
+	private final Path directory;
+	private final Path file;
+
+	// Every save by name, in the order they were first saved
+	private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+	// =============================================================================
+	// ================================ CONSTRUCTOR ================================
+	// =============================================================================
+	private SaveCatalog(Path directory){
+		this.directory = directory;
+		this.file = directory.resolve(FILENAME);
+	}
+
+	public static SaveCatalog open(){
+		// Reads the catalog in the savedBoards folder
+		return open(Paths.get(FileHandling.DIRECTORY));
+	}
+
+	public static SaveCatalog open(Path directory){
+		// Reads the catalog of the boards saved in the directory. The first time, the catalog is built from
+		// validFilenames.txt, reading each board listed there once to find its size and number of pieces.
+		SaveCatalog catalog = new SaveCatalog(directory);
+
+		try {
+			if(Files.isRegularFile(catalog.file)){
+				for(String line : Files.readAllLines(catalog.file, StandardCharsets.UTF_8)){
+					Entry entry = Entry.fromLine(line);
+					if(entry != null){
+						catalog.entries.put(entry.getName(), entry);
+					}
+				}
+			} else {
+				catalog.importLegacyFilenames();
+			}
+		} catch (IOException e) {
+			System.out.println("The saved game catalog could not be read: " + e.getMessage());
+		}
+		return catalog;
+	}
+
+	private void importLegacyFilenames() throws IOException {
+		if(!Files.isRegularFile(directory.resolve(LEGACY_FILENAME + ".txt"))){
+			return;
+		}
+
+		StringBuilder lines = new StringBuilder();
+		Model scratch = new Model();
+		for(String name : FileHandling.readLines(directory, LEGACY_FILENAME)){
+			if(!isValidName(name) || entries.containsKey(name) || !FileHandling.loadBoard(directory, name, scratch)){
+				continue;
+			}
+
+			Path board = directory.resolve(name + FileHandling.BINARY_EXTENSION);
+			if(!Files.isRegularFile(board)){
+				board = directory.resolve(name + ".txt");
+			}
+
+			Entry entry = newEntry(name, scratch, Files.getLastModifiedTime(board).toMillis());
+			entries.put(name, entry);
+			lines.append(entry.toLine());
+		}
+
+		Files.createDirectories(directory);
+		Files.write(file, lines.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	// ========================================================================
+	// ================================ UPDATES ===============================
+	// ========================================================================
+	public synchronized boolean add(String name, Model model){
+		// Records a save of the model's board under the name, returning false if the catalog file could not be written.
+		// The line goes to the end of the file in a single write, so a save is either in the file whole or not at all,
+		// and the index only changes once the line is written.
+		Entry entry = newEntry(name, model, System.currentTimeMillis());
+		try {
+			Files.write(file, entry.toLine().getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			System.out.println("The saved game catalog could not be written: " + e.getMessage());
+			return false;
+		}
+
+		// Saving over a name keeps its place in the list, with the new details
+		entries.put(name, entry);
+		return true;
+	}
+
+	private static Entry newEntry(String name, Model model, long savedAtMillis){
+		return new Entry(name, model.getNrRows(), model.getNrCols(), model.getNumberToWin(), model.getNumberOfPieces(), savedAtMillis);
+	}
+
+	// ========================================================================
+	// ================================ LOOKUP ================================
+	// ========================================================================
+	public synchronized boolean contains(String name){
+		return entries.containsKey(name);
+	}
+
+	public synchronized Entry get(String name){
+		return entries.get(name);
+	}
+
+	public synchronized List<Entry> list(Predicate<Entry> filter){
+		// Every save the filter accepts, in the order they were first saved
+		List<Entry> matching = new ArrayList<>();
+		for(Entry entry : entries.values()){
+			if(filter.test(entry)){
+				matching.add(entry);
+			}
+		}
+		return matching;
+	}
+
+	public synchronized int size(){
+		return entries.size();
+	}
+
+	public static boolean isValidName(String name){
+		// Names become file names and catalog fields, so they cannot be empty or contain separators of either
+		if(name == null || name.isEmpty()){
+			return false;
+		}
+		for(int i = 0; i < name.length(); i++){
+			char character = name.charAt(i);
+			if(character == '\t' || character == '\n' || character == '\r' || character == '/' || character == '\\'){
+				return false;
+			}
+		}
+		return true;
+	}
+}
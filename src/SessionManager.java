@@ -0,0 +1,219 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class SessionManager
+{
+	// Hosts many games at once in one JVM. Every session is the normal console game, with its own Model, TextView,
+	// ComputerPlayer and Controller, talking to its player over a GameChannel instead of standard input and output.
+	// Only the saved game catalog is shared.
+	//
+	// Each session runs on its own thread and spends nearly all of its time waiting for its player to type. On Java 21
+	// or later these are virtual threads, which cost next to nothing while they wait. Older versions fall back to
+	// ordinary threads with small stacks, which still works for thousands of games but uses far more memory.
+	//
+	// With a MoveService, sessions hand their searches to its fixed pool of workers instead of searching on their own
+	// threads, so however many games there are, only as many searches run at once as there are workers, and only the
+	// workers need transposition tables.
+	//
+	// Usage: java -jar connect-four.jar serve [--port n] [--strategy name] [--depth n] [--time ms] [--table megabytes]
+	//            [--workers n] [--render full|delta|quiet]
+	// Then connect to a game with e.g. nc localhost 4000
+	//
+	// Only connections from this machine are accepted. Sessions share the savedBoards folder, the metrics and the CPU,
+	// so the server is a local stand-in for a real game service, not something to open to the network.
+
+	// ===========================================================================
+	// ================================ CONSTANTS ================================
+	// ===========================================================================
+	public static final int DEFAULT_PORT = 4000;
+
+	// Every session's computer player has its own transposition table, so it is kept small
+	public static final int DEFAULT_TABLE_SIZE_MEGABYTES = 1;
+
+	// Stack size of the ordinary threads used when virtual threads are not available
+	private static final long FALLBACK_STACK_BYTES = 256 * 1024;
+
+	// ========================================================================
+	// ================================ FIELDS ================================
+	// ========================================================================
+	private final ExecutorService executor;
+	private final boolean virtualThreads;
+	private final SaveCatalog catalog;
+
+	// How the computer plays in new sessions
+	private ComputerPlayer.Strategy strategy = ComputerPlayer.Strategy.SEARCH;
+	private int searchDepth = NegamaxSearch.DEFAULT_MAX_DEPTH;
+	private long timeBudgetMillis = NegamaxSearch.DEFAULT_TIME_BUDGET_MILLIS;
+	private int tableSizeInMegabytes = DEFAULT_TABLE_SIZE_MEGABYTES;
+	private MoveService moveService;
+	private TextView.RenderMode renderMode = TextView.RenderMode.FULL;
+
+	private final AtomicInteger activeSessions = new AtomicInteger();
+	private final AtomicLong startedSessions = new AtomicLong();
+
+	// =============================================================================
+	// ================================ CONSTRUCTOR ================================
+	// =============================================================================
+	public SessionManager(SaveCatalog catalog){
+		this.catalog = catalog;
+
+		ExecutorService virtual = newVirtualThreadExecutor();
+		virtualThreads = virtual != null;
+		executor = virtualThreads ? virtual : Executors.newCachedThreadPool(smallStackThreads());
+	}
+
+	public static ExecutorService newThreadPerTaskExecutor(){
+		// An executor which starts a thread for every task, virtual if the JVM has them
+		ExecutorService virtual = newVirtualThreadExecutor();
+		return virtual != null ? virtual : Executors.newCachedThreadPool(smallStackThreads());
+	}
+
+	private static ExecutorService newVirtualThreadExecutor(){
+		// Found by reflection, since the game is built for Java 17 which does not have virtual threads
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	private static ThreadFactory smallStackThreads(){
+		AtomicInteger count = new AtomicInteger();
+		return task -> {
+			Thread thread = new Thread(null, task, "session-" + count.incrementAndGet(), FALLBACK_STACK_BYTES);
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	// ========================================================================
+	// ================================ SESSIONS ==============================
+	// ========================================================================
+	public Future<?> open(GameChannel channel){
+		// Starts a session on the channel, which is closed when the player ends the session or goes away
+		startedSessions.incrementAndGet();
+		activeSessions.incrementAndGet();
+		return executor.submit(() -> run(channel));
+	}
+
+	private void run(GameChannel channel){
+		try {
+			Model model = new Model();
+			TextView view = new TextView(channel);
+			view.setRenderMode(renderMode);
+			ComputerPlayer computer = new ComputerPlayer(model, tableSizeInMegabytes);
+			computer.setStrategy(strategy);
+			computer.setSearchDepth(searchDepth);
+			computer.setTimeBudgetMillis(timeBudgetMillis);
+			computer.setMoveService(moveService);
+
+			new Controller(model, view, computer, catalog).startSession();
+		} catch (NoSuchElementException e) {
+			// The player went away without ending the session, which is nothing out of the ordinary
+		} catch (RuntimeException e) {
+			System.out.println("A session failed: " + e);
+		} finally {
+			channel.close();
+			activeSessions.decrementAndGet();
+		}
+	}
+
+	public void serve(int port) throws IOException {
+		// Accepts players on the port until the process is stopped, giving each connection a session of its own
+		try (ServerSocket server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+			System.out.println("Serving games on " + server.getInetAddress().getHostAddress() + " port " + server.getLocalPort() + " using "
+					+ (virtualThreads ? "virtual threads" : "a thread per game"));
+			while(true){
+				Socket socket = server.accept();
+				open(new StreamChannel(socket.getInputStream(), socket.getOutputStream()));
+			}
+		}
+	}
+
+	public void shutdown(){
+		// Stops accepting new sessions. Sessions already running carry on until their players finish.
+		// The move service is left running for them, and is shut down by whoever made it.
+		executor.shutdown();
+	}
+
+	// =========================================================================
+	// ================================ GETTERS ================================
+	// =========================================================================
+	public boolean usesVirtualThreads(){ return virtualThreads; }
+
+	public int getActiveSessions(){ return activeSessions.get(); }
+
+	public long getStartedSessions(){ return startedSessions.get(); }
+
+	public MoveService getMoveService(){ return moveService; }
+
+	// =========================================================================
+	// ================================ SETTERS ================================
+	// =========================================================================
+	// These apply to sessions opened afterwards
+
+	public void setStrategy(ComputerPlayer.Strategy strategy){ this.strategy = strategy; }
+
+	public void setSearchDepth(int depth){ searchDepth = depth; }
+
+	public void setTimeBudgetMillis(long millis){ timeBudgetMillis = millis; }
+
+	public void setTableSizeInMegabytes(int megabytes){ tableSizeInMegabytes = megabytes; }
+
+	// Null to search on each session's own thread again
+	public void setMoveService(MoveService moveService){ this.moveService = moveService; }
+
+	public void setRenderMode(TextView.RenderMode renderMode){ this.renderMode = renderMode; }
+
+	// ========================================================================
+	// ================================ COMMAND LINE ==========================
+	// ========================================================================
+	public static void main(String[] args) throws IOException {
+		SessionManager manager = new SessionManager(SaveCatalog.open());
+		int port = DEFAULT_PORT;
+		int workers = 0;
+
+		try {
+			for(int i = 0; i < args.length; i += 2){
+				String value = i + 1 < args.length ? args[i + 1] : "";
+				switch(args[i]){
+					case "--port":     port = Integer.parseInt(value); break;
+					case "--strategy": manager.setStrategy(ComputerPlayer.Strategy.valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'))); break;
+					case "--depth":    manager.setSearchDepth(Integer.parseInt(value)); break;
+					case "--time":     manager.setTimeBudgetMillis(Long.parseLong(value)); break;
+					case "--table":    manager.setTableSizeInMegabytes(Integer.parseInt(value)); break;
+					case "--workers":  workers = Integer.parseInt(value); break;
+					case "--render":   manager.setRenderMode(TextView.RenderMode.valueOf(value.toUpperCase(Locale.ROOT))); break;
+					default:
+						System.out.println("Unknown option " + args[i]);
+						printUsage();
+						return;
+				}
+			}
+		} catch (IllegalArgumentException e) {
+			// Also catches NumberFormatException
+			System.out.println(e.getMessage());
+			printUsage();
+			return;
+		}
+
+		if(workers > 0){
+			manager.setMoveService(new MoveService(workers));
+		}
+		manager.serve(port);
+	}
+
+	private static void printUsage(){
+		System.out.println("Usage: serve [--port n] [--strategy name] [--depth n] [--time ms] [--table megabytes] [--workers n] [--render full|delta|quiet]");
+	}
+}
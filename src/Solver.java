@@ -0,0 +1,463 @@
+import java.util.Arrays;
+
+public final class Solver
+{
+	// Perfect play solver for Connect Four, based on the approach described by Pascal Pons.
+	// It works directly on two longs: the discs of the player to move, and the discs of both players (the mask),
+	// laid out as in Model with nrRows + 1 bits per column. This limits it to boards where (nrRows + 1) * nrCols <= 64,
+	// and the threat detection below is written for four in a row.
+	//
+	// A score of 0 is a draw. A positive score means the player to move wins, and the higher the score the sooner.
+	// Negative scores are losses in the same way, the lower the score the sooner. describe() turns a score into words.
+
+	// ===========================================================================
+	// ================================ CONSTANTS ================================
+	// ===========================================================================
+	public static final int DEFAULT_TABLE_SIZE_MEGABYTES = 64;
+
+	// ========================================================================
+	// ================================ FIELDS ================================
+	// ========================================================================
+	// Board shape of the position being solved, and the masks derived from it
+	private int width;
+	private int height;
+	private long bottomMask;
+	private long boardMask;
+	private int minScore;
+	private int maxScore;
+	private int[] columnOrder;
+
+	// Transposition table. Each position is stored under key = current + mask, which is unique for a given board shape,
+	// or the key of its mirror image if that is smaller, since both have the same score.
+	// The value is a lower or upper bound on the score, encoded so that 0 means no entry.
+	private final long[] tableKeys;
+	private final byte[] tableValues;
+
+	// Scratch space for sorting moves, one row per ply so recursive calls do not overwrite each other
+	private long[][] sortedMoves;
+	private int[][] sortedScores;
+
+	private long nodes;
+
+	// Solving a nearly empty board can take minutes. With a time limit, the solver gives up once it is passed,
+	// and bestMove returns -1. The clock is only read every few thousand positions.
+	private long timeLimitMillis = 0;
+	private long deadline;
+	private boolean stopped;
+
+	// Score of the position bestMove was last asked about, so it does not need solving a second time
+	private int lastScore;
+
+	// =============================================================================
+	// ================================ CONSTRUCTOR ================================
+	// =============================================================================
+	public Solver(){
+		this(DEFAULT_TABLE_SIZE_MEGABYTES);
+	}
+
+	public Solver(int tableSizeInMegabytes){
+		// A prime number of entries spreads the keys over the table better than a power of two
+		int entries = (int) Math.min(Integer.MAX_VALUE - 8, (long) tableSizeInMegabytes * 1024 * 1024 / (Long.BYTES + 1));
+		entries = largestPrimeAtMost(Math.max(entries, 3));
+		tableKeys = new long[entries];
+		tableValues = new byte[entries];
+	}
+
+	public static boolean canSolve(Model model){
+		// The solver only handles Connect Four on boards which fit in a single long per player
+		return model.getNumberToWin() == 4 && (model.getNrRows() + 1) * model.getNrCols() <= Long.SIZE;
+	}
+
+	// ========================================================================
+	// ================================ SOLVING ===============================
+	// ========================================================================
+	public int solve(Model model){
+		// Returns the exact score of the model's position for the player to move, or 0 if the time limit ran out first.
+		// The position must not already be won, and canSolve must be true for it.
+		prepare(model);
+		long current = model.getDiscs(model.getTurn());
+		long mask = current | model.getDiscs(!model.getTurn());
+		return solve(current, mask, model.getNumberOfPieces());
+	}
+
+	public int bestMove(Model model){
+		// Returns a column which achieves the best score for the player to move, or -1 if the time limit ran out first
+		prepare(model);
+		long current = model.getDiscs(model.getTurn());
+		long mask = current | model.getDiscs(!model.getTurn());
+		int moves = model.getNumberOfPieces();
+
+		// A winning move is always best
+		long winning = winningPositions(current, mask) & possible(mask);
+		for(int col : columnOrder){
+			if((winning & columnMask(col)) != 0){
+				lastScore = (width * height + 1 - moves) / 2;
+				return col;
+			}
+		}
+
+		// Otherwise, find the first column whose resulting position is no better for the opponent than -score.
+		// The table is full of useful bounds after solving the root, so each check is quick.
+		int score = solve(current, mask, moves);
+		if(stopped){
+			return -1;
+		}
+		lastScore = score;
+		long possible = possible(mask);
+		int fallback = -1;
+
+		for(int col : columnOrder){
+			long move = possible & columnMask(col);
+			if(move == 0){
+				continue;
+			}
+			if(fallback == -1){
+				fallback = col;
+			}
+
+			long nextCurrent = current ^ mask;
+			long nextMask = mask | move;
+			if(!canWinNext(nextCurrent, nextMask) && negamax(nextCurrent, nextMask, moves + 1, -score, -score + 1) <= -score){
+				return stopped ? -1 : col;
+			}
+			if(stopped){
+				return -1;
+			}
+		}
+
+		// Every move loses straight away, so any of them will do
+		return fallback;
+	}
+
+	private int solve(long current, long mask, int moves){
+		// Iterative deepening on the score: a series of null window searches narrows down [min, max] until only the
+		// exact score is left. Windows close to 0 are tried first, since they are the quickest to search.
+		if(canWinNext(current, mask)){
+			return (width * height + 1 - moves) / 2;
+		}
+
+		int min = -(width * height - moves) / 2;
+		int max = (width * height + 1 - moves) / 2;
+
+		while(min < max){
+			int med = min + (max - min) / 2;
+			if(med <= 0 && min / 2 < med){
+				med = min / 2;
+			} else if(med >= 0 && max / 2 > med){
+				med = max / 2;
+			}
+
+			int r = negamax(current, mask, moves, med, med + 1);
+			if(stopped){
+				return 0;
+			}
+			if(r <= med){
+				max = r;
+			} else {
+				min = r;
+			}
+		}
+		return min;
+	}
+
+	private int negamax(long current, long mask, int moves, int alpha, int beta){
+		// Score of a position where the player to move cannot win straight away
+		nodes++;
+
+		if((nodes & 0xFFF) == 0 && timeLimitMillis > 0 && System.currentTimeMillis() > deadline){
+			stopped = true;
+		}
+		if(stopped){
+			return 0; // The result is thrown away, and never stored in the table
+		}
+
+		long possible = nonLosingMoves(current, mask);
+		if(possible == 0){
+			return -(width * height - moves) / 2; // Every move lets the opponent win next move
+		}
+		if(moves >= width * height - 2){
+			return 0; // The board fills up before either player can win
+		}
+
+		// The opponent cannot win on their next move, so the score is at least this
+		int min = -(width * height - 2 - moves) / 2;
+		if(alpha < min){
+			alpha = min;
+			if(alpha >= beta){
+				return alpha;
+			}
+		}
+
+		// We cannot win straight away, so the score is at most this
+		int max = (width * height - 1 - moves) / 2;
+
+		long key = canonicalKey(current + mask);
+		int stored = get(key);
+		if(stored != 0){
+			if(stored > maxScore - minScore + 1){
+				// Lower bound
+				min = stored + 2 * minScore - maxScore - 2;
+				if(alpha < min){
+					alpha = min;
+					if(alpha >= beta){
+						return alpha;
+					}
+				}
+			} else {
+				// Upper bound
+				max = stored + minScore - 1;
+			}
+		}
+		if(beta > max){
+			beta = max;
+			if(alpha >= beta){
+				return beta;
+			}
+		}
+
+		// Moves which create the most new threats of our own are tried first, centre columns winning ties
+		long[] sortMoves = sortedMoves[moves];
+		int[] sortScores = sortedScores[moves];
+		int count = 0;
+		for(int i = width - 1; i >= 0; i--){
+			long move = possible & columnMask(columnOrder[i]);
+			if(move == 0){
+				continue;
+			}
+
+			int score = Long.bitCount(winningPositions(current | move, mask));
+			int pos = count++;
+			while(pos > 0 && sortScores[pos - 1] > score){
+				sortMoves[pos] = sortMoves[pos - 1];
+				sortScores[pos] = sortScores[pos - 1];
+				pos--;
+			}
+			sortMoves[pos] = move;
+			sortScores[pos] = score;
+		}
+
+		for(int i = count - 1; i >= 0; i--){
+			long move = sortMoves[i];
+			int score = -negamax(current ^ mask, mask | move, moves + 1, -beta, -alpha);
+			if(stopped){
+				return 0;
+			}
+
+			if(score >= beta){
+				put(key, score + maxScore - 2 * minScore + 2);
+				return score;
+			}
+			if(score > alpha){
+				alpha = score;
+			}
+		}
+
+		put(key, alpha - minScore + 1);
+		return alpha;
+	}
+
+	// ========================================================================
+	// ================================ BITBOARDS =============================
+	// ========================================================================
+	private void prepare(Model model){
+		// Works out the masks for the board shape, keeping the table if the shape has not changed.
+		// The node count starts again for every call, so it describes the last solve or bestMove.
+		nodes = 0;
+		stopped = false;
+		deadline = System.currentTimeMillis() + timeLimitMillis;
+		int newWidth = model.getNrCols();
+		int newHeight = model.getNrRows();
+		if(newWidth == width && newHeight == height){
+			return;
+		}
+
+		width = newWidth;
+		height = newHeight;
+		bottomMask = 0L;
+		for(int c = 0; c < width; c++){
+			bottomMask |= 1L << (c * (height + 1));
+		}
+		boardMask = bottomMask * ((1L << height) - 1);
+		minScore = -(width * height) / 2 + 3;
+		maxScore = (width * height + 1) / 2 - 3;
+		columnOrder = NegamaxSearch.centreFirstOrder(width);
+		sortedMoves = new long[width * height + 1][width];
+		sortedScores = new int[width * height + 1][width];
+		reset();
+	}
+
+	private long columnMask(int col){
+		return ((1L << height) - 1) << (col * (height + 1));
+	}
+
+	private long canonicalKey(long key){
+		// Every column of the key holds that column's discs plus one bit above them, so the mirror image's key
+		// is the same columns in the opposite order
+		int columnBits = height + 1;
+		long columnKey = (1L << columnBits) - 1;
+		long mirrored = 0L;
+		for(int c = 0; c < width; c++){
+			mirrored |= ((key >>> (c * columnBits)) & columnKey) << ((width - 1 - c) * columnBits);
+		}
+		return Math.min(key, mirrored);
+	}
+
+	private long possible(long mask){
+		// The lowest empty square of each column which is not full
+		return (mask + bottomMask) & boardMask;
+	}
+
+	private boolean canWinNext(long current, long mask){
+		return (winningPositions(current, mask) & possible(mask)) != 0;
+	}
+
+	private long nonLosingMoves(long current, long mask){
+		// Moves which do not hand the opponent a win on their next move.
+		// If the opponent has a winning square we can play, we must block it, and with two such squares we have lost.
+		long possibleMask = possible(mask);
+		long opponentWins = winningPositions(current ^ mask, mask);
+		long forced = possibleMask & opponentWins;
+		if(forced != 0){
+			if((forced & (forced - 1)) != 0){
+				return 0;
+			}
+			possibleMask = forced;
+		}
+		// Never play directly underneath a square where the opponent would win
+		return possibleMask & ~(opponentWins >>> 1);
+	}
+
+	private long winningPositions(long position, long mask){
+		// Every empty square which would complete four in a row for the discs in position
+		int h = height;
+
+		// Vertical
+		long r = (position << 1) & (position << 2) & (position << 3);
+
+		// Horizontal, with the empty square at each of the four places in the line
+		long p = (position << (h + 1)) & (position << 2 * (h + 1));
+		r |= p & (position << 3 * (h + 1));
+		r |= p & (position >>> (h + 1));
+		p = (position >>> (h + 1)) & (position >>> 2 * (h + 1));
+		r |= p & (position << (h + 1));
+		r |= p & (position >>> 3 * (h + 1));
+
+		// Diagonal going down to the right
+		p = (position << h) & (position << 2 * h);
+		r |= p & (position << 3 * h);
+		r |= p & (position >>> h);
+		p = (position >>> h) & (position >>> 2 * h);
+		r |= p & (position << h);
+		r |= p & (position >>> 3 * h);
+
+		// Diagonal going up to the right
+		p = (position << (h + 2)) & (position << 2 * (h + 2));
+		r |= p & (position << 3 * (h + 2));
+		r |= p & (position >>> (h + 2));
+		p = (position >>> (h + 2)) & (position >>> 2 * (h + 2));
+		r |= p & (position << (h + 2));
+		r |= p & (position >>> 3 * (h + 2));
+
+		return r & (boardMask ^ mask);
+	}
+
+	// ========================================================================
+	// ================================ TABLE =================================
+	// ========================================================================
+	private int get(long key){
+		int index = (int) Long.remainderUnsigned(key, tableKeys.length);
+		return tableKeys[index] == key ? tableValues[index] & 0xFF : 0;
+	}
+
+	private void put(long key, int value){
+		// Bounds which do not fit in the encoding cannot come up in a real game, but are skipped rather than corrupting the table
+		if(value <= 0 || value > 0xFF){
+			return;
+		}
+		int index = (int) Long.remainderUnsigned(key, tableKeys.length);
+		tableKeys[index] = key;
+		tableValues[index] = (byte) value;
+	}
+
+	public void reset(){
+		Arrays.fill(tableKeys, 0L);
+		Arrays.fill(tableValues, (byte) 0);
+	}
+
+	private static int largestPrimeAtMost(int n){
+		for(int candidate = n; candidate > 2; candidate--){
+			boolean prime = candidate % 2 != 0;
+			for(int d = 3; prime && (long) d * d <= candidate; d += 2){
+				prime = candidate % d != 0;
+			}
+			if(prime){
+				return candidate;
+			}
+		}
+		return 2;
+	}
+
+	// ========================================================================
+	// ================================ RESULTS ===============================
+	// ========================================================================
+	public static boolean isOver(Model model){
+		// True if the board is full or either player already has four in a row anywhere, as can happen in a loaded file.
+		// Model.isGameWon only looks through the last disc, so the whole board is checked here. canSolve must be true.
+		if(model.isBoardFull()){
+			return true;
+		}
+		int h = model.getNrRows();
+		return hasFourInARow(model.getDiscs(true), h) || hasFourInARow(model.getDiscs(false), h);
+	}
+
+	private static boolean hasFourInARow(long discs, int height){
+		// Vertical, horizontal and the two diagonals, each a fixed distance apart in the bit layout
+		int[] shifts = {1, height + 1, height, height + 2};
+		for(int shift : shifts){
+			long pairs = discs & (discs >>> shift);
+			if((pairs & (pairs >>> 2 * shift)) != 0){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public static String describe(int score, Model model){
+		// Describes a score in words, e.g. "Player 1 (to move) wins with their 12th disc, 15 discs from now"
+		if(score == 0){
+			return "The game is a draw with perfect play";
+		}
+
+		boolean winnerIsPlayerOne = (score > 0) == model.getTurn();
+		String winner = winnerIsPlayerOne ? "Player 1" : "Player 2";
+		if(score > 0){
+			winner += " (to move)";
+		}
+
+		// Total number of discs on the board once the winning disc is played. Player 1 plays the odd numbered discs.
+		int finalDiscs = model.getNrRows() * model.getNrCols() + 1 - 2 * Math.abs(score);
+		if((finalDiscs % 2 == 1) != winnerIsPlayerOne){
+			finalDiscs++;
+		}
+
+		return winner + " wins with their " + ordinal((finalDiscs + 1) / 2) + " disc, "
+				+ (finalDiscs - model.getNumberOfPieces()) + " discs from now";
+	}
+
+	private static String ordinal(int n){
+		String suffix = "th";
+		if(n % 100 < 11 || n % 100 > 13){
+			if(n % 10 == 1){suffix = "st";} else if(n % 10 == 2){suffix = "nd";} else if(n % 10 == 3){suffix = "rd";}
+		}
+		return n + suffix;
+	}
+
+	public long getNodes(){ return nodes; }
+
+	public int getLastScore(){ return lastScore; }
+
+	public boolean isStopped(){ return stopped; }
+
+	// 0 means no limit
+	public void setTimeLimitMillis(long millis){ timeLimitMillis = millis; }
+}
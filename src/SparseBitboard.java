@@ -0,0 +1,134 @@
+import java.util.Arrays;
+
+public final class SparseBitboard
+{
+	// One player's discs on a board too big to keep a bit for every square, such as a 1000x1000 Connect-6 board.
+	// Bits are numbered exactly as in Model's other bitboards, but only the 64 bit words holding a disc are kept,
+	// in an open addressing hash table keyed by the index of the word. Memory therefore grows with the discs played
+	// rather than the size of the board, and reading a bit in an empty part of the board finds no word at all.
+	//
+	// A word which empties again when its discs are taken back keeps its slot, since the same squares are likely to
+	// be played again (e.g. by a search), so the table holds at most the words ever used since the board was wiped.
+
+	// ===========================================================================
+	// ================================ CONSTANTS ================================
+	// ===========================================================================
+	// Must be a power of two
+	private static final int INITIAL_CAPACITY = 64;
+
+	// Marks a free slot, word indices are never negative
+	private static final int FREE = -1;
+
+	// ========================================================================
+	// ================================ FIELDS ================================
+	// ========================================================================
+	private int[] keys;
+	private long[] words;
+	private int mask;
+	private int size;
+
+	// =============================================================================
+	// ================================ CONSTRUCTOR ================================
+	// =============================================================================
+	public SparseBitboard(){
+		keys = new int[INITIAL_CAPACITY];
+		Arrays.fill(keys, FREE);
+		words = new long[INITIAL_CAPACITY];
+		mask = INITIAL_CAPACITY - 1;
+	}
+
+	public SparseBitboard(SparseBitboard other){
+		keys = other.keys.clone();
+		words = other.words.clone();
+		mask = other.mask;
+		size = other.size;
+	}
+
+	// ========================================================================
+	// ================================ BITS ==================================
+	// ========================================================================
+	public boolean get(int bit){
+		int slot = find(bit >>> 6);
+		return slot >= 0 && ((words[slot] >>> bit) & 1L) != 0;
+	}
+
+	public void set(int bit){
+		// The slot is found first, since finding it may grow the table and replace words
+		int slot = slotFor(bit >>> 6);
+		words[slot] |= 1L << bit;
+	}
+
+	public void clear(int bit){
+		int slot = find(bit >>> 6);
+		if(slot >= 0){
+			words[slot] &= ~(1L << bit);
+		}
+	}
+
+	// Number of words held
+	public int getWordCount(){ return size; }
+
+	// Memory taken by the table, including its free slots
+	public long getBytes(){ return (long) keys.length * (Integer.BYTES + Long.BYTES); }
+
+	// ========================================================================
+	// ================================ TABLE =================================
+	// ========================================================================
+	private static int hash(int key){
+		// Fibonacci hashing, with the high bits folded down since the mask only keeps the low ones
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private int find(int key){
+		// The slot holding the word, or -1 if it has never been used
+		int slot = hash(key) & mask;
+		while(keys[slot] != FREE){
+			if(keys[slot] == key){
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private int slotFor(int key){
+		// The slot holding the word, adding it if needed. The table is kept at most half full, so probes stay short.
+		int slot = find(key);
+		if(slot >= 0){
+			return slot;
+		}
+		if(2 * (size + 1) > keys.length){
+			grow();
+		}
+
+		slot = hash(key) & mask;
+		while(keys[slot] != FREE){
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		size++;
+		return slot;
+	}
+
+	private void grow(){
+		int[] oldKeys = keys;
+		long[] oldWords = words;
+
+		keys = new int[2 * oldKeys.length];
+		Arrays.fill(keys, FREE);
+		words = new long[keys.length];
+		mask = keys.length - 1;
+
+		for(int i = 0; i < oldKeys.length; i++){
+			if(oldKeys[i] != FREE){
+				int slot = hash(oldKeys[i]) & mask;
+				while(keys[slot] != FREE){
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				words[slot] = oldWords[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,109 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+public final class StreamChannel implements GameChannel
+{
+	// A channel over a pair of streams, used for the console game and for players connected by a socket.
+	// Socket output is buffered and only flushed when the player is asked for something, so a whole board goes out
+	// at once. Console output is written straight away, so it stays in order with anything else printed to System.out.
+
+	// ========================================================================
+	// ================================ FIELDS ================================
+	// ========================================================================
+	private final BufferedReader in;
+	private final Writer out;
+
+	// Set once either stream fails, after which the player is treated as gone
+	private boolean broken;
+
+	// True for the console, whose output is flushed after every print and whose streams are never closed
+	private final boolean isConsole;
+
+	private static StreamChannel console;
+
+	// =============================================================================
+	// ================================ CONSTRUCTOR ================================
+	// =============================================================================
+	public StreamChannel(InputStream in, OutputStream out){
+		this(in, out, false);
+	}
+
+	private StreamChannel(InputStream in, OutputStream out, boolean isConsole){
+		this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		this.isConsole = isConsole;
+	}
+
+	public static synchronized StreamChannel console(){
+		// There is only one, since two readers sharing standard input would each take lines meant for the other
+		if(console == null){
+			console = new StreamChannel(System.in, System.out, true);
+		}
+		return console;
+	}
+
+	// ========================================================================
+	// ================================ CHANNEL ===============================
+	// ========================================================================
+	@Override
+	public String readLine(){
+		flush();
+		if(broken){
+			return null;
+		}
+		try {
+			return in.readLine();
+		} catch (IOException e) {
+			broken = true;
+			return null;
+		}
+	}
+
+	@Override
+	public void print(String text){
+		if(broken){
+			return;
+		}
+		try {
+			out.write(text);
+		} catch (IOException e) {
+			broken = true;
+		}
+		if(isConsole){
+			flush();
+		}
+	}
+
+	@Override
+	public void close(){
+		flush();
+		if(isConsole){
+			return;
+		}
+		try {
+			in.close();
+			out.close();
+		} catch (IOException e) {
+			// The player has gone either way
+		}
+		broken = true;
+	}
+
+	private void flush(){
+		if(broken){
+			return;
+		}
+		try {
+			out.flush();
+		} catch (IOException e) {
+			broken = true;
+		}
+	}
+}
@@ -1,86 +1,255 @@
 public final class TextView
 {
+	// How boards are shown. FULL prints the whole board after every move. DELTA draws the board once at the top of
+	// the terminal, keeps the messages scrolling underneath it, and afterwards only rewrites the squares which changed,
+	// using ANSI escape codes, so it needs a terminal which understands them and is tall enough for the whole board.
+	// QUIET shows no boards at all, e.g. for simulated players which keep track of the board themselves.
+	public enum RenderMode { FULL, DELTA, QUIET }
+
+	// ANSI escape codes used by DELTA
+	private static final String ESCAPE = "\u001b[";
+	private static final String CLEAR_SCREEN = ESCAPE + "H" + ESCAPE + "2J";
+	private static final String SAVE_CURSOR = "\u001b7";
+	private static final String RESTORE_CURSOR = "\u001b8";
+
+	// More changed squares than this, e.g. after the board is wiped or loaded, and DELTA draws the board again instead
+	private static final int MAX_CHANGED_SQUARES = 16;
+
+	// Characters which represent each type of space
+	private static final String EMPTY_CHAR      = "   ";
+	private static final String PLAYER_ONE_CHAR = " A ";
+	private static final String PLAYER_TWO_CHAR = " B ";
+
+	// Everything is shown and asked on this channel, standard input and output for the console game
+	private final GameChannel channel;
+
+	private RenderMode renderMode = RenderMode.FULL;
+
+	// Each frame is built up here and printed in one go. The same builder is used for every frame.
+	private final StringBuilder frame = new StringBuilder();
+
+	// The line between rows, kept until the number of columns changes
+	private String rowDivider = "";
+
+	// For DELTA, the squares as they are on the screen, or null if the next board has to be drawn in full
+	private int[] shownCells;
+	private int shownRows;
+	private int shownCols;
+	private final int[] changedCells = new int[MAX_CHANGED_SQUARES];
+
+	// Whether DELTA has kept the board out of the scrolling part of the terminal, which has to be undone at the end
+	private boolean scrollRegionSet;
+
 	public TextView()
 	{
-	
+		this(StreamChannel.console());
+	}
+
+	public TextView(GameChannel channel)
+	{
+		this.channel = channel;
 	}
 	
+	public final RenderMode getRenderMode()
+	{
+		return renderMode;
+	}
+
+	public final void setRenderMode(RenderMode renderMode)
+	{
+		if(this.renderMode == RenderMode.DELTA && renderMode != RenderMode.DELTA){
+			restoreTerminal();
+		}
+		this.renderMode = renderMode;
+		shownCells = null;
+	}
+
 	public final void displayNewGameMessage()
 	{
-		System.out.println("---- NEW GAME STARTED ----");
+		channel.println("---- NEW GAME STARTED ----");
+	}
+
+	public final void print(String text)
+	{
+		channel.print(text);
+	}
+
+	public final void println(String text)
+	{
+		channel.println(text);
+	}
+
+	public final void println()
+	{
+		channel.println("");
 	}
 	
 	public final int askForMove() {
-		System.out.print("Select a free column (columns begin at 1, enter a negative number if you would like to quit): ");
-		return InputUtil.readIntFromUser();
+		channel.print("Select a free column (columns begin at 1, enter a negative number if you would like to quit): ");
+		return InputUtil.readIntFromUser(channel);
 	}
 
 	public final int askForSize(){
-		System.out.print("Select a dimension: ");
-		return InputUtil.readIntFromUser();
+		channel.print("Select a dimension: ");
+		return InputUtil.readIntFromUser(channel);
 	}
 
 	public final char askForDecision(){
-		System.out.print("Enter a command (n: new game, e: end session, r: resize board, x: change game to Connect-X, c: game against computer, s: save previous game, l: load game from file)?: ");
-		return InputUtil.readCharFromUser();
+		channel.print("Enter a command (n: new game, e: end session, r: resize board, x: change game to Connect-X, c: game against computer, s: save previous game, l: load game from file, d: choose how the computer plays, v: solve the current position, m: show metrics)?: ");
+		return InputUtil.readCharFromUser(channel);
 	}
 
 	public final String askForFilename(){
-		System.out.print("Please enter a filename (do not type .txt): ");
-		return InputUtil.readStringFromUser();
+		channel.print("Please enter a filename (do not type .txt): ");
+		return InputUtil.readStringFromUser(channel);
+	}
+
+	public final char askForChar(){
+		return InputUtil.readCharFromUser(channel);
+	}
+
+	public final String askForString(){
+		return InputUtil.readStringFromUser(channel);
 	}
 
 	public final int askForNum(){
-		System.out.print("Select a number: ");
-		return InputUtil.readIntFromUser();
+		channel.print("Select a number: ");
+		return InputUtil.readIntFromUser(channel);
 	}
 	
 	public final void displayBoard(Model model) {
 
-		// Get the board representation.
-		int nrRows    = model.getNrRows();
-		int nrCols    = model.getNrCols();
-		int[][] board = model.getBoard();
+		if(renderMode == RenderMode.QUIET){
+			return;
+		}
 
-		// Values which represent type of each space within the 2d array
-		int emptySpace     =  0;
-		int playerOneSpace =  1;
-		int playerTwoSpace = -1;
+		frame.setLength(0);
+		if(renderMode == RenderMode.DELTA){
+			if(!appendChanges(model)){
+				appendFullScreen(model);
+			}
+		} else {
+			appendBoard(model);
+		}
+
+		// The whole frame reaches the player as one print
+		channel.print(frame.toString());
+	}
+
+	public final void restoreTerminal()
+	{
+		// Lets the whole terminal scroll again, once DELTA is finished with it. Does nothing otherwise.
+		if(scrollRegionSet){
+			channel.print(SAVE_CURSOR + ESCAPE + "r" + RESTORE_CURSOR);
+			scrollRegionSet = false;
+		}
+		shownCells = null;
+	}
+
+	private void appendBoard(Model model){
 
-		// Characters which represent each type of space
-		String emptyChar     = "   ";
-		String playerOneChar = " A ";
-		String playerTwoChar = " B ";
+		// Get the board representation.
+		int nrRows = model.getNrRows();
+		int nrCols = model.getNrCols();
 
-		String rowDivider = " - ".repeat(nrCols);
+		if(rowDivider.length() != 3 * nrCols){
+			rowDivider = " - ".repeat(nrCols);
+		}
 
 		// Print a row divider per row, then print the contents of each row
-		System.out.println(rowDivider);
+		frame.append(rowDivider).append('\n');
 
-		// Since we loop through the rows forward, graphically the top row is board[0], bottom row is board[nrCols -1]
-		for(int[] row : board){
+		// Since we loop through the rows forward, graphically the top row is row 0
+		for(int r = 0; r < nrRows; r++){
 
 			// Print contents of the row
-			for(int i = 0; i < row.length; i++){
-				if(row[i] == playerOneSpace){
-					System.out.print(playerOneChar);
-				}
-				else if(row[i] == playerTwoSpace){
-					System.out.print(playerTwoChar);
-				}
-				else {
-					System.out.print(emptyChar);
-				}
+			for(int c = 0; c < nrCols; c++){
+				frame.append(cellChars(model.getCell(r, c)));
 			}
 
-			System.out.println("\n" + rowDivider);
+			frame.append('\n').append(rowDivider).append('\n');
 
 		}
 
 		// Add the number of the each column at the bottom
 		for(int i = 1; i <= nrCols; i++){
-			System.out.print(" " + i + " ");
+			frame.append(' ').append(i).append(' ');
+		}
+		frame.append('\n');
+	}
+
+	private static String cellChars(int value){
+		if(value == Model.playerOne){
+			return PLAYER_ONE_CHAR;
+		} else if(value == Model.playerTwo){
+			return PLAYER_TWO_CHAR;
+		}
+		return EMPTY_CHAR;
+	}
+
+	private void appendFullScreen(Model model){
+		// Draws the board at the top of a cleared terminal, and makes only the lines below it scroll,
+		// so the board stays where appendChanges expects it however many messages follow
+		int nrRows = model.getNrRows();
+		int nrCols = model.getNrCols();
+		int boardLines = 2 * nrRows + 2;
+
+		frame.append(ESCAPE).append('r').append(CLEAR_SCREEN);
+		appendBoard(model);
+		frame.append(ESCAPE).append(boardLines + 1).append('r');
+		frame.append(ESCAPE).append(boardLines + 1).append(";1H");
+		scrollRegionSet = true;
+
+		// Remember what is on the screen
+		if(shownCells == null || shownCells.length != nrRows * nrCols){
+			shownCells = new int[nrRows * nrCols];
+		}
+		shownRows = nrRows;
+		shownCols = nrCols;
+		for(int r = 0; r < nrRows; r++){
+			for(int c = 0; c < nrCols; c++){
+				shownCells[r * nrCols + c] = model.getCell(r, c);
+			}
+		}
+	}
+
+	private boolean appendChanges(Model model){
+		// Rewrites just the squares which differ from the screen, and puts the cursor back where the messages are.
+		// Returns false, having added nothing, if the board has to be drawn in full instead.
+		int nrRows = model.getNrRows();
+		int nrCols = model.getNrCols();
+		if(shownCells == null || nrRows != shownRows || nrCols != shownCols){
+			return false;
+		}
+
+		int changed = 0;
+		for(int r = 0; r < nrRows; r++){
+			for(int c = 0; c < nrCols; c++){
+				if(model.getCell(r, c) != shownCells[r * nrCols + c]){
+					if(changed == MAX_CHANGED_SQUARES){
+						return false;
+					}
+					changedCells[changed++] = r * nrCols + c;
+				}
+			}
+		}
+
+		if(changed == 0){
+			return true;
+		}
+
+		frame.append(SAVE_CURSOR);
+		for(int i = 0; i < changed; i++){
+			int cell = changedCells[i];
+			int r = cell / nrCols;
+			int c = cell % nrCols;
+			int value = model.getCell(r, c);
+			shownCells[cell] = value;
+
+			// Row r is on line 2r + 2 of the terminal (lines count from 1), below its divider, and each square is 3 wide
+			frame.append(ESCAPE).append(2 * r + 2).append(';').append(3 * c + 1).append('H').append(cellChars(value));
 		}
-		System.out.println();
+		frame.append(RESTORE_CURSOR);
+		return true;
 	}
 }
@@ -0,0 +1,278 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class Tournament
+{
+	// Plays computer strategies against each other without a console game, to measure how changes to the computer
+	// player affect its strength. Games are shared out between a pool of threads, each with its own Model and pair of
+	// ComputerPlayers, and nothing is printed until the final report.
+	//
+	// Usage: java -jar connect-four.jar tournament [--games n] [--first strategy] [--second strategy] [--threads n]
+	//            [--rows n] [--cols n] [--win n] [--depth n] [--time ms] [--opening plies] [--seed n]
+	//
+	// Strategies are the names in ComputerPlayer.Strategy, e.g. random, play_for_win, search, monte_carlo or perfect.
+	// The first strategy moves first in even numbered games and second in odd ones, and every game starts with a few
+	// random moves so that two deterministic strategies do not play the same game over and over.
+
+	// ===========================================================================
+	// ================================ CONSTANTS ================================
+	// ===========================================================================
+	private static final int DEFAULT_GAMES = 1000;
+	private static final int DEFAULT_SEARCH_DEPTH = 6;
+	private static final long DEFAULT_TIME_BUDGET_MILLIS = 100;
+	private static final int DEFAULT_OPENING_PLIES = 2;
+
+	// Each player gets a small transposition table, since many run at once
+	private static final int TABLE_SIZE_MEGABYTES = 4;
+
+	// ========================================================================
+	// ================================ FIELDS ================================
+	// ========================================================================
+	private int games = DEFAULT_GAMES;
+	private ComputerPlayer.Strategy first = ComputerPlayer.Strategy.PLAY_FOR_WIN;
+	private ComputerPlayer.Strategy second = ComputerPlayer.Strategy.RANDOM;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int nrRows = Model.DEFAULT_NR_ROWS;
+	private int nrCols = Model.DEFAULT_NR_COLS;
+	private int numberToWin = Model.DEFAULT_NUMBER_TO_WIN;
+	private int searchDepth = DEFAULT_SEARCH_DEPTH;
+	private long timeBudgetMillis = DEFAULT_TIME_BUDGET_MILLIS;
+	private int openingPlies = DEFAULT_OPENING_PLIES;
+	private long seed = 1;
+
+	// Results from the point of view of the first strategy, added up from every thread once its games are done
+	private static final class Results {
+		long wins;
+		long draws;
+		long losses;
+		long[] moves = new long[2];      // Moves made by the first and second strategy
+		long[] moveNanos = new long[2];  // Time they spent choosing them
+
+		void add(Results other){
+			wins += other.wins;
+			draws += other.draws;
+			losses += other.losses;
+			for(int i = 0; i < 2; i++){
+				moves[i] += other.moves[i];
+				moveNanos[i] += other.moveNanos[i];
+			}
+		}
+	}
+
+	// =============================================================================
+	// ================================ ENTRY POINT ================================
+	// =============================================================================
+	public static void main(String[] args) throws Exception {
+		Tournament tournament = new Tournament();
+		if(!tournament.parse(args)){
+			System.out.println("Usage: tournament [--games n] [--first strategy] [--second strategy] [--threads n] [--rows n] [--cols n] [--win n] [--depth n] [--time ms] [--opening plies] [--seed n]");
+			System.out.println("Strategies: " + strategyNames());
+			return;
+		}
+		tournament.run();
+	}
+
+	private boolean parse(String[] args){
+		// Returns false if the arguments cannot be understood
+		try {
+			for(int i = 0; i < args.length; i++){
+				String value = i + 1 < args.length ? args[i + 1] : "";
+				switch(args[i]){
+					case "--games":   games = Integer.parseInt(value); break;
+					case "--first":   first = parseStrategy(value); break;
+					case "--second":  second = parseStrategy(value); break;
+					case "--threads": threads = Integer.parseInt(value); break;
+					case "--rows":    nrRows = Integer.parseInt(value); break;
+					case "--cols":    nrCols = Integer.parseInt(value); break;
+					case "--win":     numberToWin = Integer.parseInt(value); break;
+					case "--depth":   searchDepth = Integer.parseInt(value); break;
+					case "--time":    timeBudgetMillis = Long.parseLong(value); break;
+					case "--opening": openingPlies = Integer.parseInt(value); break;
+					case "--seed":    seed = Long.parseLong(value); break;
+					default:
+						System.out.println("Unknown option " + args[i]);
+						return false;
+				}
+				i++;
+			}
+		} catch (IllegalArgumentException e) {
+			// Also catches NumberFormatException
+			System.out.println(e.getMessage());
+			return false;
+		}
+
+		if(games < 1 || threads < 1 || numberToWin < 2 || numberToWin > Math.min(nrRows, nrCols)){
+			System.out.println("Need at least one game and thread, and a number to win which fits on the board");
+			return false;
+		}
+		return true;
+	}
+
+	private static ComputerPlayer.Strategy parseStrategy(String name){
+		try {
+			return ComputerPlayer.Strategy.valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown strategy " + name);
+		}
+	}
+
+	private static String strategyNames(){
+		List<String> names = new ArrayList<>();
+		for(ComputerPlayer.Strategy strategy : ComputerPlayer.Strategy.values()){
+			names.add(strategy.name().toLowerCase(Locale.ROOT));
+		}
+		return String.join(", ", names);
+	}
+
+	// ========================================================================
+	// ================================ PLAYING ===============================
+	// ========================================================================
+	private void run() throws Exception {
+		System.out.println("Playing " + games + " games of " + nrRows + "x" + nrCols + " Connect-" + numberToWin + ", "
+				+ first + " against " + second + " on " + threads + " threads");
+
+		// Rather than a task per game, each thread takes the next game number until there are none left
+		AtomicInteger nextGame = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<Results>> futures = new ArrayList<>();
+
+		long start = System.nanoTime();
+		for(int t = 0; t < threads; t++){
+			futures.add(pool.submit(() -> playGames(nextGame)));
+		}
+
+		Results total = new Results();
+		try {
+			for(Future<Results> future : futures){
+				total.add(future.get());
+			}
+		} finally {
+			pool.shutdown();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		report(total, seconds);
+	}
+
+	private Results playGames(AtomicInteger nextGame){
+		Model model = new Model();
+		model.setRows(nrRows);
+		model.setCols(nrCols);
+		model.setNumberToWin(numberToWin);
+
+		ComputerPlayer firstPlayer = newPlayer(model, first);
+		ComputerPlayer secondPlayer = newPlayer(model, second);
+		Results results = new Results();
+
+		for(int game = nextGame.getAndIncrement(); game < games; game = nextGame.getAndIncrement()){
+			// The same game number always has the same opening and random choices, whichever thread plays it
+			SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + game);
+			boolean firstMovesFirst = game % 2 == 0;
+			firstPlayer.setRandomSeed(random.nextLong());
+			secondPlayer.setRandomSeed(random.nextLong());
+
+			int winner = playGame(model, firstMovesFirst ? firstPlayer : secondPlayer,
+					firstMovesFirst ? secondPlayer : firstPlayer, random, results, firstMovesFirst);
+
+			// winner is 1 if player one won, -1 if player two won and 0 for a draw
+			if(winner == 0){
+				results.draws++;
+			} else if((winner == 1) == firstMovesFirst){
+				results.wins++;
+			} else {
+				results.losses++;
+			}
+		}
+		return results;
+	}
+
+	private int playGame(Model model, ComputerPlayer playerOne, ComputerPlayer playerTwo, SplittableRandom random,
+						 Results results, boolean firstMovesFirst){
+		model.wipeBoard();
+
+		for(int ply = 0; ; ply++){
+			boolean playerOneTurn = model.getTurn();
+			int col;
+
+			if(ply < openingPlies){
+				col = random.nextInt(nrCols);
+				while(!model.isMoveValid(col)){
+					col = random.nextInt(nrCols);
+				}
+			} else {
+				// Index 0 is the first strategy's statistics, 1 the second's
+				int mover = playerOneTurn == firstMovesFirst ? 0 : 1;
+				long moveStart = System.nanoTime();
+				col = (playerOneTurn ? playerOne : playerTwo).computeMove();
+				results.moveNanos[mover] += System.nanoTime() - moveStart;
+				results.moves[mover]++;
+			}
+
+			model.makeMove(col);
+			if(model.isGameWon(col)){
+				return playerOneTurn ? 1 : -1;
+			}
+			if(model.isBoardFull()){
+				return 0;
+			}
+		}
+	}
+
+	private ComputerPlayer newPlayer(Model model, ComputerPlayer.Strategy strategy){
+		ComputerPlayer player = new ComputerPlayer(model, TABLE_SIZE_MEGABYTES);
+		player.setStrategy(strategy);
+		player.setSearchDepth(searchDepth);
+		player.setTimeBudgetMillis(timeBudgetMillis);
+		return player;
+	}
+
+	// ========================================================================
+	// ================================ REPORT ================================
+	// ========================================================================
+	private void report(Results results, double seconds){
+		long played = results.wins + results.draws + results.losses;
+		double score = (results.wins + 0.5 * results.draws) / played;
+
+		// Standard error of the score per game, for a rough 95% confidence interval on the Elo difference
+		double variance = (results.wins * (1 - score) * (1 - score) + results.draws * (0.5 - score) * (0.5 - score)
+				+ results.losses * score * score) / played;
+		double margin = 1.96 * Math.sqrt(variance / played);
+
+		System.out.printf(Locale.ROOT, "%s: %d wins (%.1f%%), %d draws (%.1f%%), %d losses (%.1f%%) against %s%n",
+				first, results.wins, 100.0 * results.wins / played, results.draws, 100.0 * results.draws / played,
+				results.losses, 100.0 * results.losses / played, second);
+		System.out.printf(Locale.ROOT, "Elo difference: %s (95%% interval %s to %s)%n",
+				formatElo(elo(score)), formatElo(elo(score - margin)), formatElo(elo(score + margin)));
+		System.out.printf(Locale.ROOT, "Average move time: %s %.3f ms, %s %.3f ms%n",
+				first, averageMillis(results, 0), second, averageMillis(results, 1));
+		System.out.printf(Locale.ROOT, "%d games in %.2f s, %.1f games per second%n", played, seconds, played / seconds);
+	}
+
+	private static double elo(double score){
+		// Elo difference which predicts the given expected score, infinite for a clean sweep either way
+		if(score <= 0){
+			return Double.NEGATIVE_INFINITY;
+		}
+		if(score >= 1){
+			return Double.POSITIVE_INFINITY;
+		}
+		return -400 * Math.log10(1 / score - 1);
+	}
+
+	private static String formatElo(double elo){
+		if(Double.isInfinite(elo)){
+			return elo > 0 ? "+inf" : "-inf";
+		}
+		return String.format(Locale.ROOT, "%+.0f", elo);
+	}
+
+	private static double averageMillis(Results results, int player){
+		return results.moves[player] == 0 ? 0 : results.moveNanos[player] / 1e6 / results.moves[player];
+	}
+}
@@ -0,0 +1,144 @@
+import java.util.Arrays;
+
+public final class TranspositionTable
+{
+	// ===========================================================================
+	// ================================ CONSTANTS ================================
+	// ===========================================================================
+	// Kind of score stored with a position. An exact score was inside the search window, a lower bound caused a
+	// cutoff (the real score is at least this much) and an upper bound means no move reached alpha.
+	public static final int BOUND_NONE  = 0;
+	public static final int BOUND_EXACT = 1;
+	public static final int BOUND_LOWER = 2;
+	public static final int BOUND_UPPER = 3;
+
+	// Returned by probe when the position is not in the table
+	public static final long NO_ENTRY = 0L;
+
+	public static final int DEFAULT_SIZE_MEGABYTES = 8;
+
+	// Each entry uses two longs, one for the key and one for the packed data
+	private static final int BYTES_PER_ENTRY = 16;
+
+	// Layout of the data long: | score (32 bits) | move (16 bits) | depth (8 bits) | unused (6 bits) | bound (2 bits) |
+	private static final int SCORE_SHIFT = 32;
+	private static final int MOVE_SHIFT  = 16;
+	private static final int DEPTH_SHIFT = 8;
+
+	// ========================================================================
+	// ================================ FIELDS ================================
+	// ========================================================================
+	// Entries are grouped into buckets of two slots. The first slot keeps whichever position was searched deepest,
+	// the second slot always takes the most recent position, so new results are never lost entirely.
+	// The key array holds key ^ data rather than the key itself. When several search threads share the table without
+	// locking, a slot whose key and data were written by different threads no longer matches, so it reads as a miss.
+	private final long[] keys;
+	private final long[] data;
+	private final int bucketMask;
+
+	// Statistics, reset by clear(). These are not synchronised, so they are approximate when the table is shared.
+	private long hits;
+	private long misses;
+	private long collisions;
+	private long stores;
+
+	// =============================================================================
+	// ================================ CONSTRUCTOR ================================
+	// =============================================================================
+	public TranspositionTable(int sizeInMegabytes){
+		// The number of entries is rounded down to a power of two so a bucket can be found with a bit mask
+		long maxEntries = Math.max(2L, (long) sizeInMegabytes * 1024 * 1024 / BYTES_PER_ENTRY);
+		int entries = (int) Math.min(Long.highestOneBit(maxEntries), 1 << 30);
+
+		keys = new long[entries];
+		data = new long[entries];
+		bucketMask = entries / 2 - 1;
+	}
+
+	// ========================================================================
+	// ================================ ACCESS ================================
+	// ========================================================================
+	public long probe(long key){
+		// Returns the packed entry for a position, or NO_ENTRY if it is not stored.
+		// Use the static scoreOf, moveOf, depthOf and boundOf methods to unpack the result.
+		int slot = bucketOf(key);
+
+		for(int i = slot; i < slot + 2; i++){
+			long entry = data[i];
+			if((keys[i] ^ entry) == key && entry != NO_ENTRY){
+				hits++;
+				return entry;
+			}
+		}
+
+		misses++;
+		if(data[slot] != NO_ENTRY || data[slot + 1] != NO_ENTRY){
+			collisions++; // The bucket holds other positions which share the same index
+		}
+		return NO_ENTRY;
+	}
+
+	public void store(long key, int score, int move, int depth, int bound){
+		int slot = bucketOf(key);
+		long entry = pack(score, move, depth, bound);
+		stores++;
+
+		// A position which is already stored is simply updated
+		long firstEntry = data[slot];
+		if((keys[slot] ^ firstEntry) == key || depthOf(firstEntry) <= depth){
+			keys[slot] = key ^ entry;
+			data[slot] = entry;
+		} else {
+			keys[slot + 1] = key ^ entry;
+			data[slot + 1] = entry;
+		}
+	}
+
+	public void clear(){
+		Arrays.fill(keys, 0L);
+		Arrays.fill(data, NO_ENTRY);
+		hits = 0;
+		misses = 0;
+		collisions = 0;
+		stores = 0;
+	}
+
+	private int bucketOf(long key){
+		// The low bits of the hash pick the bucket, each bucket starting at an even index
+		return ((int) key & bucketMask) << 1;
+	}
+
+	// ========================================================================
+	// ================================ PACKING ===============================
+	// ========================================================================
+	private static long pack(int score, int move, int depth, int bound){
+		// The bound is never BOUND_NONE for a stored entry, so a stored entry can never equal NO_ENTRY
+		return ((long) score << SCORE_SHIFT)
+				| ((long) (move & 0xFFFF) << MOVE_SHIFT)
+				| ((long) (depth & 0xFF) << DEPTH_SHIFT)
+				| (bound & 0x3);
+	}
+
+	public static int scoreOf(long entry){ return (int) (entry >> SCORE_SHIFT); }
+
+	public static int moveOf(long entry){ return (short) (entry >>> MOVE_SHIFT); }
+
+	public static int depthOf(long entry){ return (int) (entry >>> DEPTH_SHIFT) & 0xFF; }
+
+	public static int boundOf(long entry){ return (int) entry & 0x3; }
+
+	// =========================================================================
+	// ================================ GETTERS ================================
+	// =========================================================================
+	public int getCapacity(){ return keys.length; }
+
+	public long getSizeInBytes(){ return (long) keys.length * BYTES_PER_ENTRY; }
+
+	public long getHits(){ return hits; }
+
+	public long getMisses(){ return misses; }
+
+	public long getCollisions(){ return collisions; }
+
+	public long getStores(){ return stores; }
+}
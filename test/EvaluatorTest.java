@@ -0,0 +1,116 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+final class EvaluatorTest
+{
+	// ========================================================================
+	// ================================ THREATS ===============================
+	// ========================================================================
+	@Test
+	void threeInALineIsAThreatOnTheFourthSquare(){
+		Evaluator evaluator = new Evaluator(6, 7, 4);
+		evaluator.place(0, 0, true);
+		evaluator.place(1, 0, true);
+		assertEquals(0, evaluator.getThreatSquares(true, true));
+
+		// The bottom row is row 1, so the threat at column 3 is on an odd row
+		evaluator.place(2, 0, true);
+		assertEquals(1, evaluator.getThreatSquares(true, true));
+		assertEquals(0, evaluator.getThreatSquares(true, false));
+		assertEquals(0, evaluator.getThreatSquares(false, true));
+	}
+
+	@Test
+	void blockingASquareRemovesItsThreat(){
+		Evaluator evaluator = new Evaluator(6, 7, 4);
+		evaluator.place(0, 0, true);
+		evaluator.place(1, 0, true);
+		evaluator.place(2, 0, true);
+		evaluator.place(3, 0, false);
+		assertEquals(0, evaluator.getThreatSquares(true, true));
+
+		evaluator.remove(3, 0);
+		assertEquals(1, evaluator.getThreatSquares(true, true));
+	}
+
+	@Test
+	void aSquareCompletingTwoLinesCountsOnce(){
+		// Column 2 completes both 0-3 and 1-4
+		Evaluator evaluator = new Evaluator(6, 7, 4);
+		evaluator.place(0, 0, true);
+		evaluator.place(1, 0, true);
+		evaluator.place(3, 0, true);
+		evaluator.place(4, 0, true);
+		assertEquals(1, evaluator.getThreatSquares(true, true));
+
+		evaluator.remove(4, 0);
+		assertEquals(1, evaluator.getThreatSquares(true, true));
+		evaluator.remove(0, 0);
+		assertEquals(0, evaluator.getThreatSquares(true, true));
+	}
+
+	@Test
+	void threatsOnTheSecondRowAreEven(){
+		Evaluator evaluator = new Evaluator(6, 7, 4);
+		evaluator.place(2, 1, false);
+		evaluator.place(3, 1, false);
+		evaluator.place(4, 1, false);
+
+		// Both ends of the line, columns 1 and 5
+		assertEquals(2, evaluator.getThreatSquares(false, false));
+		assertEquals(0, evaluator.getThreatSquares(false, true));
+	}
+
+	@Test
+	void threatsOnTheRightRowsScoreMore(){
+		// Odd rows favour player one, so player one's threat on row 3 is worth more than player two's
+		Evaluator one = new Evaluator(6, 7, 4);
+		Evaluator two = new Evaluator(6, 7, 4);
+		for(int col = 0; col < 3; col++){
+			one.place(col, 2, true);
+			two.place(col, 2, false);
+		}
+		assertTrue(one.score() > -two.score());
+	}
+
+	// ========================================================================
+	// ================================ UPDATES ===============================
+	// ========================================================================
+	@Test
+	void incrementalUpdatesMatchScoringFromScratch(){
+		// Random games with moves taken back, checked against an evaluator given the final discs one by one
+		SplittableRandom random = new SplittableRandom(3);
+		for(int game = 0; game < 50; game++){
+			Model model = ModelTest.newModel(6, 7, 4);
+			model.setEvaluationEnabled(true);
+			for(int move = 0; move < 30 && !model.isBoardFull(); move++){
+				if(model.getNumberOfPieces() > 0 && random.nextInt(4) == 0){
+					model.undoLast();
+					continue;
+				}
+				int col = random.nextInt(7);
+				if(model.isMoveValid(col)){
+					model.makeMove(col);
+				}
+			}
+
+			Evaluator fresh = new Evaluator(6, 7, 4);
+			for(int col = 0; col < 7; col++){
+				for(int height = 0; height < model.getHeight(col); height++){
+					fresh.place(col, height, model.getCell(5 - height, col) == Model.playerOne);
+				}
+			}
+
+			Model rescored = new Model(model);
+			rescored.setEvaluationEnabled(false);
+			rescored.setEvaluationEnabled(true);
+			int expected = model.getTurn() ? fresh.score() : -fresh.score();
+			assertEquals(expected, rescored.evaluate(), "game " + game);
+			assertEquals(rescored.evaluate(), model.evaluate(), "game " + game);
+		}
+	}
+}
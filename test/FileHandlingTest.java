@@ -0,0 +1,188 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+final class FileHandlingTest
+{
+	// Offsets of the header fields of a binary save, see FileHandling
+	private static final int VERSION_OFFSET = 4;
+	private static final int ROWS_OFFSET = 6;
+	private static final int COLS_OFFSET = 10;
+	private static final int NUMBER_TO_WIN_OFFSET = 14;
+	private static final int PIECES_OFFSET = 18;
+	private static final int HEADER_BYTES = 22;
+
+	// ========================================================================
+	// ================================ HELPERS ===============================
+	// ========================================================================
+	private static ByteBuffer copy(ByteBuffer buffer){
+		// A writable copy of a save, so single fields can be broken
+		ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+		copy.put(buffer.duplicate()).flip();
+		return copy;
+	}
+
+	private static void assertSamePosition(Model expected, Model actual){
+		assertEquals(expected.getNrRows(), actual.getNrRows());
+		assertEquals(expected.getNrCols(), actual.getNrCols());
+		assertEquals(expected.getNumberToWin(), actual.getNumberToWin());
+		assertEquals(expected.getNumberOfPieces(), actual.getNumberOfPieces());
+		assertEquals(expected.getTurn(), actual.getTurn());
+		assertEquals(expected.getHash(), actual.getHash());
+		assertArrayEquals(expected.getBoard(), actual.getBoard());
+	}
+
+	private static ByteBuffer savedGame(){
+		Model model = ModelTest.newModel(6, 7, 4);
+		ModelTest.play(model, 3, 3, 2, 4, 4);
+		return FileHandling.encodeBoard(model);
+	}
+
+	// ========================================================================
+	// ================================ ROUND TRIPS ===========================
+	// ========================================================================
+	@Test
+	void aGameRoundTripsWithItsMoves(){
+		// Few enough moves that the list of them is smaller than the cells, so the moves are saved
+		Model model = ModelTest.newModel(6, 7, 4);
+		ModelTest.play(model, 3, 3, 2, 4, 4);
+
+		Model loaded = new Model();
+		assertTrue(FileHandling.decodeBoard(FileHandling.encodeBoard(model), loaded));
+		assertSamePosition(model, loaded);
+		assertArrayEquals(model.getMoveHistory(), loaded.getMoveHistory());
+	}
+
+	@Test
+	void aLoadedBoardRoundTripsCellByCell(){
+		// A board set up square by square has no move history, so it is saved as cells
+		Model model = ModelTest.newModel(9, 11, 5);
+		model.setBoard(8, 0, Model.playerOne);
+		model.setBoard(8, 1, Model.playerTwo);
+		model.setBoard(7, 1, Model.playerOne);
+		model.setBoard(8, 10, Model.playerTwo);
+		model.setNumberOfPieces(4);
+
+		Model loaded = new Model();
+		assertTrue(FileHandling.decodeBoard(FileHandling.encodeBoard(model), loaded));
+		assertSamePosition(model, loaded);
+	}
+
+	@Test
+	void theSideToMoveRoundTrips(){
+		Model model = ModelTest.newModel(6, 7, 4);
+		ModelTest.play(model, 3);
+		model.reverseTurn();
+
+		Model loaded = new Model();
+		assertTrue(FileHandling.decodeBoard(FileHandling.encodeBoard(model), loaded));
+		assertEquals(model.getTurn(), loaded.getTurn());
+	}
+
+	@Test
+	void anOldTextSaveLoads(){
+		Model loaded = new Model();
+		assertTrue(FileHandling.decodeTextBoard(List.of("0000", "0000", "0200", "1100", ""), loaded));
+		assertEquals(4, loaded.getNrRows());
+		assertEquals(4, loaded.getNrCols());
+		assertEquals(3, loaded.getNumberOfPieces());
+		assertFalse(loaded.getTurn());
+	}
+
+	// ========================================================================
+	// ================================ CORRUPT SAVES =========================
+	// ========================================================================
+	@Test
+	void theGoodSaveUsedBelowLoads(){
+		assertTrue(FileHandling.decodeBoard(savedGame(), new Model()));
+	}
+
+	@Test
+	void aWrongMagicNumberIsRejected(){
+		ByteBuffer save = copy(savedGame());
+		save.putInt(0, 0x12345678);
+		assertFalse(FileHandling.decodeBoard(save, new Model()));
+	}
+
+	@Test
+	void anUnknownVersionIsRejected(){
+		ByteBuffer save = copy(savedGame());
+		save.put(VERSION_OFFSET, (byte) 99);
+		assertFalse(FileHandling.decodeBoard(save, new Model()));
+	}
+
+	@Test
+	void impossibleBoardSizesAreRejected(){
+		for(int offset : new int[]{ROWS_OFFSET, COLS_OFFSET}){
+			for(int size : new int[]{0, -1, Integer.MAX_VALUE}){
+				ByteBuffer save = copy(savedGame());
+				save.putInt(offset, size);
+				assertFalse(FileHandling.decodeBoard(save, new Model()), "size " + size + " at offset " + offset);
+			}
+		}
+	}
+
+	@Test
+	void boardsTooBigToNumberAreRejected(){
+		// Integer.MAX_VALUE squares fit in an int, but not with the spare bit above each column. An empty move list
+		// keeps the body the right length, so only the size check can catch it.
+		ByteBuffer save = ByteBuffer.allocate(HEADER_BYTES);
+		save.putInt(0x43345356).put((byte) 1).put((byte) 3).putInt(Integer.MAX_VALUE).putInt(1).putInt(4).putInt(0).flip();
+		assertFalse(FileHandling.decodeBoard(save, new Model()));
+	}
+
+	@Test
+	void impossibleNumbersToWinAreRejected(){
+		// The save is for a 6x7 board, so a line can be at most 7 long
+		for(int numberToWin : new int[]{-4, 0, 1, 8, Integer.MAX_VALUE}){
+			ByteBuffer save = copy(savedGame());
+			save.putInt(NUMBER_TO_WIN_OFFSET, numberToWin);
+			assertFalse(FileHandling.decodeBoard(save, new Model()), "numberToWin " + numberToWin);
+		}
+		for(int numberToWin : new int[]{2, 7}){
+			ByteBuffer save = copy(savedGame());
+			save.putInt(NUMBER_TO_WIN_OFFSET, numberToWin);
+			assertTrue(FileHandling.decodeBoard(save, new Model()), "numberToWin " + numberToWin);
+		}
+	}
+
+	@Test
+	void aPieceCountWhichDoesNotMatchTheBodyIsRejected(){
+		for(int pieces : new int[]{-1, 4, 6, 43}){
+			ByteBuffer save = copy(savedGame());
+			save.putInt(PIECES_OFFSET, pieces);
+			assertFalse(FileHandling.decodeBoard(save, new Model()), "pieces " + pieces);
+		}
+	}
+
+	@Test
+	void truncatedSavesAreRejected(){
+		ByteBuffer save = savedGame();
+		for(int length : new int[]{0, HEADER_BYTES - 1, HEADER_BYTES, save.remaining() - 1}){
+			ByteBuffer truncated = copy(save).limit(length);
+			assertFalse(FileHandling.decodeBoard(truncated, new Model()), "length " + length);
+		}
+	}
+
+	@Test
+	void aMoveOffTheBoardIsRejected(){
+		ByteBuffer save = copy(savedGame());
+		save.putShort(HEADER_BYTES, (short) 7);
+		Model loaded = new Model();
+		assertFalse(FileHandling.decodeBoard(save, loaded));
+		assertEquals(0, loaded.getNumberOfPieces());
+	}
+
+	@Test
+	void textSavesWithStrayCharactersOrRaggedRowsAreRejected(){
+		assertFalse(FileHandling.decodeTextBoard(List.of("0000", "0x00"), new Model()));
+		assertFalse(FileHandling.decodeTextBoard(List.of("0000", "000"), new Model()));
+		assertFalse(FileHandling.decodeTextBoard(List.of(""), new Model()));
+	}
+}
@@ -0,0 +1,232 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+final class ModelTest
+{
+	// ========================================================================
+	// ================================ HELPERS ===============================
+	// ========================================================================
+	static Model newModel(int rows, int cols, int numberToWin){
+		Model model = new Model();
+		model.setRows(rows);
+		model.setCols(cols);
+		model.setNumberToWin(numberToWin);
+		model.wipeBoard();
+		return model;
+	}
+
+	static void play(Model model, int... cols){
+		for(int col : cols){
+			model.makeMove(col);
+		}
+	}
+
+	// ========================================================================
+	// ================================ WINS ==================================
+	// ========================================================================
+	@Test
+	void horizontalLineWins(){
+		Model model = newModel(6, 7, 4);
+		play(model, 0, 0, 1, 1, 2, 2);
+		assertFalse(model.isGameWon(2));
+		play(model, 3);
+		assertTrue(model.isGameWon(3));
+	}
+
+	@Test
+	void verticalLineWins(){
+		Model model = newModel(6, 7, 4);
+		play(model, 6, 5, 6, 5, 6, 5);
+		assertFalse(model.isGameWon(5));
+		play(model, 6);
+		assertTrue(model.isGameWon(6));
+	}
+
+	@Test
+	void risingDiagonalWins(){
+		Model model = newModel(6, 7, 4);
+		play(model, 0, 1, 1, 2, 2, 3, 2, 3, 3, 6);
+		assertFalse(model.isGameWon(6));
+		play(model, 3);
+		assertTrue(model.isGameWon(3));
+	}
+
+	@Test
+	void fallingDiagonalWins(){
+		Model model = newModel(6, 7, 4);
+		play(model, 6, 5, 5, 4, 4, 3, 4, 3, 3, 0);
+		assertFalse(model.isGameWon(0));
+		play(model, 3);
+		assertTrue(model.isGameWon(3));
+	}
+
+	@Test
+	void linesBrokenByTheOtherPlayerDoNotWin(){
+		Model model = newModel(6, 7, 4);
+		play(model, 0, 6, 1, 2, 3, 6, 4, 6, 5);
+		assertFalse(model.isGameWon(5));
+	}
+
+	@Test
+	void connectXNeedsTheWholeLine(){
+		Model model = newModel(20, 20, 6);
+		for(int col = 0; col < 5; col++){
+			play(model, col, col);
+		}
+		assertFalse(model.isGameWon(4));
+		play(model, 5);
+		assertTrue(model.isGameWon(5));
+	}
+
+	@Test
+	void sparseBoardsFindWins(){
+		Model model = newModel(1000, 1000, 6);
+		assertTrue(model.isSparse());
+		for(int col = 500; col < 505; col++){
+			play(model, col, col);
+		}
+		assertFalse(model.isGameWon(504));
+		play(model, 505);
+		assertTrue(model.isGameWon(505));
+	}
+
+	@Test
+	void boardsUpToTheLargestBitNumberCanBePlayed(){
+		// 46341 * 46340 bits is just under Integer.MAX_VALUE, while the number of squares alone would overflow
+		// a move history sized from it
+		Model model = newModel(46340, 46340, 6);
+		assertTrue(model.isSparse());
+		play(model, 46339, 46339, 0);
+		assertFalse(model.isBoardFull());
+		assertEquals(0, model.undoLast());
+		assertEquals(2, model.getNumberOfPieces());
+	}
+
+	@Test
+	void boardsTooBigToNumberAreRejected(){
+		assertTrue(Model.isValidSize(46340, 46340));
+		assertFalse(Model.isValidSize(46341, 46341));
+		assertFalse(Model.isValidSize(3, 1_000_000_000));
+		assertFalse(Model.isValidSize(50_000, 50_000));
+		assertFalse(Model.isValidSize(Integer.MAX_VALUE, 1));
+		assertFalse(Model.isValidSize(0, 7));
+
+		Model model = new Model();
+		model.setRows(3);
+		model.setCols(1_000_000_000);
+		assertThrows(IllegalArgumentException.class, model::wipeBoard);
+	}
+
+	// ========================================================================
+	// ================================ UNDO ==================================
+	// ========================================================================
+	@Test
+	void undoingEveryMoveRestoresEveryPosition(){
+		for(int[] shape : new int[][]{{6, 7, 4}, {20, 20, 5}, {1000, 1000, 6}}){
+			Model model = newModel(shape[0], shape[1], shape[2]);
+			SplittableRandom random = new SplittableRandom(shape[1]);
+
+			int moves = 40;
+			long[] hashes = new long[moves + 1];
+			int[][][] boards = new int[moves + 1][][];
+			hashes[0] = model.getHash();
+			boards[0] = shape[0] <= 20 ? model.getBoard() : null;
+			int played = 0;
+			while(played < moves && !model.isBoardFull()){
+				int col = random.nextInt(shape[1] < 20 ? shape[1] : 10);
+				if(model.isMoveValid(col)){
+					model.makeMove(col);
+					played++;
+					hashes[played] = model.getHash();
+					boards[played] = shape[0] <= 20 ? model.getBoard() : null;
+				}
+			}
+
+			for(int ply = played; ply > 0; ply--){
+				assertEquals(hashes[ply], model.getHash());
+				if(boards[ply] != null){
+					assertArrayEquals(boards[ply], model.getBoard());
+				}
+				model.undoLast();
+			}
+			assertEquals(hashes[0], model.getHash());
+			assertEquals(0, model.getNumberOfPieces());
+			assertTrue(model.getTurn());
+			assertEquals(-1, model.undoLast());
+		}
+	}
+
+	@Test
+	void undoingAnEmptyColumnChangesNothing(){
+		Model model = newModel(6, 7, 4);
+		play(model, 3);
+		long hash = model.getHash();
+		boolean turn = model.getTurn();
+
+		model.undoMove(0);
+
+		assertEquals(hash, model.getHash());
+		assertEquals(turn, model.getTurn());
+		assertEquals(1, model.getPly());
+		assertEquals(1, model.getNumberOfPieces());
+	}
+
+	@Test
+	void undoingAnOlderMoveTakesItOffTheHistory(){
+		Model model = newModel(6, 7, 4);
+		play(model, 0, 1, 2);
+
+		model.undoMove(1);
+		assertArrayEquals(new int[]{0, 2}, model.getMoveHistory());
+
+		// Every remaining move can still be taken back, and then there is nothing left to undo
+		assertEquals(2, model.undoLast());
+		assertEquals(0, model.undoLast());
+		assertEquals(-1, model.undoLast());
+		assertEquals(0, model.getNumberOfPieces());
+	}
+
+	// ========================================================================
+	// ================================ HASHES ================================
+	// ========================================================================
+	@Test
+	void theSamePositionHasTheSameHashHoweverItWasReached(){
+		Model first = newModel(6, 7, 4);
+		Model second = newModel(6, 7, 4);
+		play(first, 0, 1, 2, 3);
+		play(second, 2, 3, 0, 1);
+		assertEquals(first.getHash(), second.getHash());
+
+		play(second, 4);
+		assertNotEquals(first.getHash(), second.getHash());
+	}
+
+	@Test
+	void mirrorImagesShareACanonicalHash(){
+		Model model = newModel(6, 7, 4);
+		Model mirror = newModel(6, 7, 4);
+		play(model, 0, 1, 1, 2);
+		play(mirror, 6, 5, 5, 4);
+		assertNotEquals(model.getHash(), mirror.getHash());
+		assertEquals(model.getCanonicalHash(), mirror.getCanonicalHash());
+	}
+
+	@Test
+	void switchingTurnChangesTheHash(){
+		Model model = newModel(6, 7, 4);
+		play(model, 3);
+		long hash = model.getHash();
+		model.reverseTurn();
+		assertNotEquals(hash, model.getHash());
+		model.reverseTurn();
+		assertEquals(hash, model.getHash());
+	}
+}
@@ -0,0 +1,76 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+final class MonteCarloSearchTest
+{
+	// ========================================================================
+	// ================================ HELPERS ===============================
+	// ========================================================================
+	private static MonteCarloSearch fixedPlayouts(Model model, int playouts){
+		MonteCarloSearch search = new MonteCarloSearch(model, 1 << 16, new SplittableRandom(5));
+		search.setMaxPlayouts(playouts);
+		search.setTimeBudgetMillis(Long.MAX_VALUE / 2);
+		return search;
+	}
+
+	// ========================================================================
+	// ================================ TESTS =================================
+	// ========================================================================
+	@Test
+	void takesAnImmediateWin(){
+		Model model = ModelTest.newModel(6, 7, 4);
+		ModelTest.play(model, 0, 0, 1, 1, 2, 2);
+		assertEquals(3, fixedPlayouts(model, 2000).bestMove());
+	}
+
+	@Test
+	void leavesTheCallersModelAlone(){
+		Model model = ModelTest.newModel(6, 7, 4);
+		model.setEvaluationEnabled(true);
+		ModelTest.play(model, 3, 3, 2);
+		long hash = model.getHash();
+		int[] history = model.getMoveHistory();
+
+		fixedPlayouts(model, 500).bestMove();
+
+		assertTrue(model.isEvaluationEnabled());
+		assertEquals(hash, model.getHash());
+		assertArrayEquals(history, model.getMoveHistory());
+	}
+
+	@Test
+	void keepsTheTreeForMovesThatFollowOn(){
+		Model model = ModelTest.newModel(6, 7, 4);
+		MonteCarloSearch search = fixedPlayouts(model, 2000);
+		int col = search.bestMove();
+		assertEquals(0, search.getReusedVisits());
+
+		// The computer's move and the reply were both explored below the old root
+		model.makeMove(col);
+		model.makeMove(3);
+		search.bestMove();
+		assertTrue(search.getReusedVisits() > 0);
+	}
+
+	@Test
+	void startsAgainForAnUnrelatedPosition(){
+		// The same number of discs, but not the position the tree was built for
+		Model model = ModelTest.newModel(6, 7, 4);
+		ModelTest.play(model, 0, 1);
+		MonteCarloSearch search = fixedPlayouts(model, 1000);
+		search.bestMove();
+
+		model.undoLast();
+		model.undoLast();
+		ModelTest.play(model, 5, 6, 4, 4);
+		search.bestMove();
+		assertEquals(0, search.getReusedVisits());
+		assertFalse(model.isEvaluationEnabled());
+	}
+}
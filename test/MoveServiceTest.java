@@ -0,0 +1,78 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+final class MoveServiceTest
+{
+	// Boards outside the opening book, so every job really searches
+	private static Model position(int... cols){
+		Model model = ModelTest.newModel(8, 9, 4);
+		ModelTest.play(model, cols);
+		return model;
+	}
+
+	@Test
+	void everyJobGetsItsMove() throws Exception {
+		MoveService service = new MoveService(2);
+		try {
+			// Player one wins by completing the row in column 3
+			Model win = position(0, 0, 1, 1, 2, 2);
+			List<CompletableFuture<MoveService.Result>> results = new ArrayList<>();
+			for(int i = 0; i < 6; i++){
+				results.add(service.submit(win, ComputerPlayer.Strategy.SEARCH, 4, 0));
+			}
+
+			for(CompletableFuture<MoveService.Result> result : results){
+				assertEquals(3, result.get(10, TimeUnit.SECONDS).getColumn());
+			}
+			assertEquals(6, service.getJobs());
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	void jobsSubmittedTogetherAreSpreadOverTheWorkers() throws Exception {
+		// Eight 200 ms searches on four workers take two rounds. One worker taking them all would take eight.
+		MoveService service = new MoveService(4);
+		try {
+			long start = System.nanoTime();
+			List<CompletableFuture<MoveService.Result>> results = new ArrayList<>();
+			for(int i = 0; i < 8; i++){
+				results.add(service.submit(position(4), ComputerPlayer.Strategy.SEARCH, 40, 200));
+			}
+			for(CompletableFuture<MoveService.Result> result : results){
+				result.get(10, TimeUnit.SECONDS);
+			}
+			long millis = (System.nanoTime() - start) / 1_000_000;
+			assertTrue(millis < 1200, "took " + millis + " ms");
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	void shuttingDownFailsJobsStillWaiting() throws Exception {
+		MoveService service = new MoveService(1);
+		CompletableFuture<MoveService.Result> inHand = service.submit(position(4), ComputerPlayer.Strategy.SEARCH, 40, 300);
+		CompletableFuture<MoveService.Result> waiting = service.submit(position(4), ComputerPlayer.Strategy.SEARCH, 40, 300);
+		Thread.sleep(50);
+		service.shutdown();
+
+		// The job being worked on is finished, the one behind it is not
+		inHand.get(10, TimeUnit.SECONDS);
+		ExecutionException failure = assertThrows(ExecutionException.class, () -> waiting.get(10, TimeUnit.SECONDS));
+		assertTrue(failure.getCause() instanceof IllegalStateException);
+
+		CompletableFuture<MoveService.Result> late = service.submit(position(4), ComputerPlayer.Strategy.SEARCH, 4, 0);
+		assertThrows(ExecutionException.class, () -> late.get(10, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,85 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+final class NegamaxSearchTest
+{
+	// ========================================================================
+	// ================================ HELPERS ===============================
+	// ========================================================================
+	private static NegamaxSearch fixedDepth(Model model, int depth){
+		NegamaxSearch search = new NegamaxSearch(model, new TranspositionTable(1));
+		search.setMaxDepth(depth);
+		search.setTimeBudgetMillis(0);
+		return search;
+	}
+
+	// ========================================================================
+	// ================================ TESTS =================================
+	// ========================================================================
+	@Test
+	void takesAnImmediateWin(){
+		Model model = ModelTest.newModel(6, 7, 4);
+		ModelTest.play(model, 0, 0, 1, 1, 2, 2);
+		NegamaxSearch search = fixedDepth(model, 4);
+		assertEquals(3, search.bestMove());
+		assertEquals(NegamaxSearch.WIN_SCORE - 7, search.getBestScore());
+	}
+
+	@Test
+	void blocksTheOpponentsWin(){
+		Model model = ModelTest.newModel(6, 7, 4);
+		ModelTest.play(model, 0, 6, 1, 6, 2);
+		assertEquals(3, fixedDepth(model, 4).bestMove());
+	}
+
+	@Test
+	void leavesTheCallersModelAlone(){
+		// The search plays on its own copy, so the caller's model keeps its position and does not start evaluating
+		Model model = ModelTest.newModel(6, 7, 4);
+		ModelTest.play(model, 3, 3, 2, 4);
+		long hash = model.getHash();
+		int[] history = model.getMoveHistory();
+
+		NegamaxSearch search = fixedDepth(model, 6);
+		search.bestMove();
+		search.searchDepth(3);
+
+		assertFalse(model.isEvaluationEnabled());
+		assertEquals(hash, model.getHash());
+		assertEquals(4, model.getNumberOfPieces());
+		assertArrayEquals(history, model.getMoveHistory());
+	}
+
+	@Test
+	void followsTheCallersModelFromMoveToMove(){
+		Model model = ModelTest.newModel(6, 7, 4);
+		NegamaxSearch search = fixedDepth(model, 4);
+		search.bestMove();
+
+		// Player two now has three discs stacked in column 5, which must be blocked
+		ModelTest.play(model, 0, 5, 1, 5, 0, 5);
+		assertEquals(5, search.bestMove());
+	}
+
+	@Test
+	void stopsAtTheDeadline(){
+		// An empty board cannot be searched 40 moves deep, so only the time limit ends the search
+		Model model = ModelTest.newModel(6, 7, 4);
+		NegamaxSearch search = new NegamaxSearch(model, new TranspositionTable(1));
+		search.setMaxDepth(40);
+		search.setTimeBudgetMillis(100);
+
+		int col = search.bestMove();
+		assertTrue(search.getElapsedMillis() < 500, search.getElapsedMillis() + " ms");
+		assertTrue(search.getCompletedDepth() >= 1 && search.getCompletedDepth() < 40);
+		assertTrue(model.isMoveValid(col));
+
+		// The table keeps the result of the last completed depth, not the unfinished one
+		long entry = search.getTable().probe(model.getCanonicalHash());
+		assertEquals(search.getCompletedDepth(), TranspositionTable.depthOf(entry));
+	}
+}
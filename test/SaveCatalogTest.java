@@ -0,0 +1,127 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+final class SaveCatalogTest
+{
+	@TempDir
+	Path directory;
+
+	// ========================================================================
+	// ================================ NAMES =================================
+	// ========================================================================
+	@Test
+	void ordinaryNamesAreValid(){
+		for(String name : new String[]{"a", "game1", "my game", "connect-6 1000x1000", "save.v2", "ééé"}){
+			assertTrue(SaveCatalog.isValidName(name), name);
+		}
+	}
+
+	@Test
+	void emptyNamesAreInvalid(){
+		assertFalse(SaveCatalog.isValidName(null));
+		assertFalse(SaveCatalog.isValidName(""));
+	}
+
+	@Test
+	void namesWithSeparatorsAreInvalid(){
+		// Tabs and line breaks would split a catalog line, slashes would leave the savedBoards folder
+		for(String name : new String[]{"a\tb", "a\nb", "a\rb", "a/b", "a\\b", "../game", "\t"}){
+			assertFalse(SaveCatalog.isValidName(name), name.replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r"));
+		}
+	}
+
+	// ========================================================================
+	// ================================ CATALOG ===============================
+	// ========================================================================
+	@Test
+	void savesAreAppendedToTheCatalogFile() throws IOException {
+		SaveCatalog catalog = SaveCatalog.open(directory);
+		assertEquals(0, catalog.size());
+
+		Model model = ModelTest.newModel(6, 7, 4);
+		ModelTest.play(model, 3, 3);
+		assertTrue(catalog.add("first", model));
+		assertTrue(catalog.add("second", ModelTest.newModel(8, 9, 5)));
+
+		List<String> lines = Files.readAllLines(directory.resolve(SaveCatalog.FILENAME), StandardCharsets.UTF_8);
+		assertEquals(2, lines.size());
+		assertTrue(lines.get(0).startsWith("first\t6\t7\t4\t2\t"), lines.get(0));
+		assertTrue(lines.get(1).startsWith("second\t8\t9\t5\t0\t"), lines.get(1));
+
+		SaveCatalog.Entry entry = catalog.get("second");
+		assertEquals(8, entry.getNrRows());
+		assertEquals(9, entry.getNrCols());
+		assertEquals(5, entry.getNumberToWin());
+	}
+
+	@Test
+	void theLastSaveOfANameCounts() throws IOException {
+		SaveCatalog catalog = SaveCatalog.open(directory);
+		Model model = ModelTest.newModel(6, 7, 4);
+		catalog.add("game", model);
+		catalog.add("other", model);
+		ModelTest.play(model, 0, 1, 2);
+		catalog.add("game", model);
+
+		// Both saves stay in the file, but the name is listed once, in the place it was first saved
+		assertEquals(3, Files.readAllLines(directory.resolve(SaveCatalog.FILENAME), StandardCharsets.UTF_8).size());
+		assertEquals(2, catalog.size());
+		assertEquals(3, catalog.get("game").getNumberOfPieces());
+		assertEquals("game", catalog.list(entry -> true).get(0).getName());
+	}
+
+	@Test
+	void reopeningRebuildsTheIndex() throws IOException {
+		SaveCatalog catalog = SaveCatalog.open(directory);
+		Model model = ModelTest.newModel(6, 7, 4);
+		catalog.add("a", model);
+		catalog.add("b", ModelTest.newModel(10, 10, 5));
+		ModelTest.play(model, 3);
+		catalog.add("a", model);
+
+		// A line cut short by a crash mid save is skipped
+		Files.write(directory.resolve(SaveCatalog.FILENAME), "broken\t6\t7".getBytes(StandardCharsets.UTF_8),
+				StandardOpenOption.APPEND);
+
+		SaveCatalog reopened = SaveCatalog.open(directory);
+		assertEquals(2, reopened.size());
+		assertEquals(1, reopened.get("a").getNumberOfPieces());
+		assertNull(reopened.get("broken"));
+		assertEquals(1, reopened.list(entry -> entry.getNrCols() == 10).size());
+		assertEquals(catalog.get("a").getSavedAtMillis(), reopened.get("a").getSavedAtMillis());
+	}
+
+	@Test
+	void validFilenamesAreImportedTheFirstTime() throws IOException {
+		// One binary save, one older text save, and one listed name with no board behind it
+		Model model = ModelTest.newModel(6, 7, 4);
+		ModelTest.play(model, 3, 2, 3);
+		assertTrue(FileHandling.saveBoard(directory, "binary", model));
+		Files.write(directory.resolve("text.txt"), Arrays.asList("0000000", "0000000", "0000000", "0000000", "0000000", "1200001"),
+				StandardCharsets.UTF_8);
+		Files.write(directory.resolve("validFilenames.txt"), Arrays.asList("binary", "text", "missing"), StandardCharsets.UTF_8);
+
+		SaveCatalog catalog = SaveCatalog.open(directory);
+		assertEquals(2, catalog.size());
+		assertEquals(3, catalog.get("binary").getNumberOfPieces());
+		assertEquals(3, catalog.get("text").getNumberOfPieces());
+		assertFalse(catalog.contains("missing"));
+
+		// The catalog file is written, so the next start reads it instead of importing again
+		Files.delete(directory.resolve("validFilenames.txt"));
+		assertEquals(2, SaveCatalog.open(directory).size());
+	}
+}
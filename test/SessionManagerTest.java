@@ -0,0 +1,108 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+final class SessionManagerTest
+{
+	// ========================================================================
+	// ================================ HELPERS ===============================
+	// ========================================================================
+	private static final String COMPUTER_MOVE = "The computer places a disc in column ";
+
+	@TempDir
+	Path directory;
+
+	private SessionManager newManager(){
+		SessionManager manager = new SessionManager(SaveCatalog.open(directory));
+		manager.setStrategy(ComputerPlayer.Strategy.PLAY_FOR_WIN);
+		manager.setRenderMode(TextView.RenderMode.QUIET);
+		return manager;
+	}
+
+	private static int computerColumn(String reply){
+		// The column the computer played, counting from 0, or -1 if the reply does not say
+		int at = reply.indexOf(COMPUTER_MOVE);
+		if(at < 0){
+			return -1;
+		}
+		int end = at + COMPUTER_MOVE.length();
+		while(end < reply.length() && Character.isDigit(reply.charAt(end))){
+			end++;
+		}
+		return Integer.parseInt(reply.substring(at + COMPUTER_MOVE.length(), end)) - 1;
+	}
+
+	// ========================================================================
+	// ================================ TESTS =================================
+	// ========================================================================
+	@Test
+	void eachSessionPlaysItsOwnGame() throws Exception {
+		// The players choose different columns, so the computer only ever answers with a legal move if every session keeps its own board
+		SessionManager manager = newManager();
+		List<QueueChannel> channels = new ArrayList<>();
+		List<Future<?>> sessions = new ArrayList<>();
+		List<Model> boards = new ArrayList<>();
+		for(int i = 0; i < 20; i++){
+			QueueChannel channel = new QueueChannel();
+			channels.add(channel);
+			sessions.add(manager.open(channel));
+			boards.add(new Model());
+			assertNotNull(channel.receive());
+			channel.send("c");
+			assertNotNull(channel.receive());
+		}
+
+		// Each player makes one move in turn, so every session is waiting at the same time
+		for(int move = 0; move < 3; move++){
+			for(int i = 0; i < channels.size(); i++){
+				Model board = boards.get(i);
+				int col = (i + move) % 7;
+				channels.get(i).send(String.valueOf(col + 1));
+				String reply = channels.get(i).receive();
+				board.makeMove(col);
+
+				int computer = computerColumn(reply);
+				assertTrue(board.isMoveValid(computer), reply);
+				board.makeMove(computer);
+			}
+		}
+		assertEquals(20, manager.getActiveSessions());
+
+		for(QueueChannel channel : channels){
+			channel.hangUp();
+		}
+		for(Future<?> session : sessions){
+			session.get(10, TimeUnit.SECONDS);
+		}
+		assertEquals(0, manager.getActiveSessions());
+		assertEquals(20, manager.getStartedSessions());
+		manager.shutdown();
+	}
+
+	@Test
+	void endingTheSessionClosesTheChannel() throws Exception {
+		SessionManager manager = newManager();
+		QueueChannel channel = new QueueChannel();
+		Future<?> session = manager.open(channel);
+		assertNotNull(channel.receive());
+
+		channel.send("e");
+		while(channel.receive() != null){
+			// Whatever the session says on the way out
+		}
+		session.get(10, TimeUnit.SECONDS);
+		assertNull(channel.receive());
+		assertEquals(0, manager.getActiveSessions());
+		manager.shutdown();
+	}
+}
@@ -0,0 +1,123 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+final class SolverTest
+{
+	// ========================================================================
+	// ================================ HELPERS ===============================
+	// ========================================================================
+	private static Model randomPosition(SplittableRandom random, int moves){
+		// A 6x7 position after the given number of random moves, in which nobody has won yet
+		while(true){
+			Model model = ModelTest.newModel(6, 7, 4);
+			boolean won = false;
+			while(model.getNumberOfPieces() < moves && !won){
+				int col = random.nextInt(7);
+				if(model.isMoveValid(col)){
+					model.makeMove(col);
+					won = model.isGameWon(col);
+				}
+			}
+			if(!won){
+				return model;
+			}
+		}
+	}
+
+	private static int bruteForce(Model model){
+		// Plain negamax to the end of the game, scored as Solver scores: a win with the player's k-th from last
+		// disc of the board is worth k, so quicker wins score more
+		int squares = model.getNrRows() * model.getNrCols();
+		for(int col = 0; col < model.getNrCols(); col++){
+			if(model.isMoveValid(col)){
+				model.makeMove(col);
+				boolean won = model.isGameWon(col);
+				model.undoLast();
+				if(won){
+					return (squares + 1 - model.getNumberOfPieces()) / 2;
+				}
+			}
+		}
+		if(model.getNumberOfPieces() >= squares - 1){
+			return 0;
+		}
+
+		int best = -squares;
+		for(int col = 0; col < model.getNrCols(); col++){
+			if(model.isMoveValid(col)){
+				model.makeMove(col);
+				best = Math.max(best, -bruteForce(model));
+				model.undoLast();
+			}
+		}
+		return best;
+	}
+
+	// ========================================================================
+	// ================================ TESTS =================================
+	// ========================================================================
+	@Test
+	void scoresMatchAFullSearch(){
+		SplittableRandom random = new SplittableRandom(11);
+		Solver solver = new Solver(1);
+		for(int i = 0; i < 20; i++){
+			Model model = randomPosition(random, 32);
+			assertEquals(bruteForce(model), solver.solve(model), "position " + i);
+		}
+	}
+
+	@Test
+	void theBestMoveAchievesTheScore(){
+		SplittableRandom random = new SplittableRandom(12);
+		Solver solver = new Solver(1);
+		for(int i = 0; i < 20; i++){
+			Model model = randomPosition(random, 30);
+			int score = solver.solve(model);
+			int col = solver.bestMove(model);
+			assertEquals(score, solver.getLastScore());
+
+			model.makeMove(col);
+			int after = model.isGameWon(col) ? score : -solver.solve(model);
+			assertEquals(score, after, "position " + i);
+		}
+	}
+
+	@Test
+	void anImmediateWinIsTaken(){
+		Model model = ModelTest.newModel(6, 7, 4);
+		ModelTest.play(model, 0, 0, 1, 1, 2, 2);
+		Solver solver = new Solver(1);
+		assertEquals(3, solver.bestMove(model));
+		assertEquals((42 + 1 - 6) / 2, solver.getLastScore());
+	}
+
+	@Test
+	void givesUpWhenTheTimeLimitRunsOut(){
+		// An empty board takes far longer than a millisecond
+		Solver solver = new Solver(1);
+		solver.setTimeLimitMillis(1);
+		assertEquals(-1, solver.bestMove(ModelTest.newModel(6, 7, 4)));
+		assertTrue(solver.isStopped());
+	}
+
+	@Test
+	void perfectPlayReportsTheSolversFigures(){
+		Model model = randomPosition(new SplittableRandom(13), 28);
+		ComputerPlayer computer = new ComputerPlayer(model, 1);
+		computer.setStrategy(ComputerPlayer.Strategy.PERFECT);
+		int col = computer.computeMove();
+
+		Solver solver = new Solver(1);
+		int score = solver.solve(model);
+		assertEquals(score, computer.getLastScore());
+		assertEquals(42 - 28, computer.getLastDepth());
+		assertTrue(computer.getLastNodes() > 0);
+		assertTrue(model.isMoveValid(col));
+		assertFalse(computer.getLastMoveReport().contains("opening book"));
+	}
+}
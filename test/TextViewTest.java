@@ -0,0 +1,157 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+final class TextViewTest
+{
+	// ========================================================================
+	// ================================ HELPERS ===============================
+	// ========================================================================
+	private static final String ESCAPE = "\u001b[";
+	private static final String SAVE_CURSOR = "\u001b7";
+	private static final String RESTORE_CURSOR = "\u001b8";
+
+	// Keeps everything printed, for the test to take
+	private static final class RecordingChannel implements GameChannel
+	{
+		private final StringBuilder printed = new StringBuilder();
+
+		@Override
+		public String readLine(){ return null; }
+
+		@Override
+		public void print(String text){ printed.append(text); }
+
+		@Override
+		public void close(){
+			// Nothing to do!
+		}
+
+		String take(){
+			String text = printed.toString();
+			printed.setLength(0);
+			return text;
+		}
+	}
+
+	private static final String EMPTY_2X3 =
+			" -  -  - \n" +
+			"         \n" +
+			" -  -  - \n" +
+			"         \n" +
+			" -  -  - \n" +
+			" 1  2  3 \n";
+
+	// ========================================================================
+	// ================================ TESTS =================================
+	// ========================================================================
+	@Test
+	void fullPrintsTheWholeBoardEveryTime(){
+		RecordingChannel channel = new RecordingChannel();
+		TextView view = new TextView(channel);
+		Model model = ModelTest.newModel(2, 3, 2);
+
+		view.displayBoard(model);
+		assertEquals(EMPTY_2X3, channel.take());
+
+		model.makeMove(0);
+		view.displayBoard(model);
+		assertEquals(
+				" -  -  - \n" +
+				"         \n" +
+				" -  -  - \n" +
+				" A       \n" +
+				" -  -  - \n" +
+				" 1  2  3 \n", channel.take());
+	}
+
+	@Test
+	void deltaDrawsTheBoardOnceAtTheTop(){
+		RecordingChannel channel = new RecordingChannel();
+		TextView view = new TextView(channel);
+		view.setRenderMode(TextView.RenderMode.DELTA);
+
+		// The board takes 6 lines, so the messages scroll from line 7 down
+		view.displayBoard(ModelTest.newModel(2, 3, 2));
+		assertEquals(ESCAPE + "r" + ESCAPE + "H" + ESCAPE + "2J" + EMPTY_2X3 + ESCAPE + "7r" + ESCAPE + "7;1H", channel.take());
+	}
+
+	@Test
+	void deltaOnlyRewritesTheSquaresThatChanged(){
+		RecordingChannel channel = new RecordingChannel();
+		TextView view = new TextView(channel);
+		view.setRenderMode(TextView.RenderMode.DELTA);
+		Model model = ModelTest.newModel(2, 3, 2);
+		view.displayBoard(model);
+		channel.take();
+
+		// The bottom row is on line 4, and column 2 starts at character 4
+		model.makeMove(1);
+		view.displayBoard(model);
+		assertEquals(SAVE_CURSOR + ESCAPE + "4;4H A " + RESTORE_CURSOR, channel.take());
+
+		model.makeMove(1);
+		model.makeMove(2);
+		view.displayBoard(model);
+		assertEquals(SAVE_CURSOR + ESCAPE + "2;4H B " + ESCAPE + "4;7H A " + RESTORE_CURSOR, channel.take());
+
+		// Nothing changed, so nothing is drawn
+		view.displayBoard(model);
+		assertEquals("", channel.take());
+
+		// Taking a move back empties its square again
+		model.undoLast();
+		view.displayBoard(model);
+		assertEquals(SAVE_CURSOR + ESCAPE + "4;7H   " + RESTORE_CURSOR, channel.take());
+	}
+
+	@Test
+	void deltaDrawsAgainWhenTooMuchChanges(){
+		RecordingChannel channel = new RecordingChannel();
+		TextView view = new TextView(channel);
+		view.setRenderMode(TextView.RenderMode.DELTA);
+		Model model = ModelTest.newModel(6, 7, 4);
+		view.displayBoard(model);
+		channel.take();
+
+		// A resized board, and a loaded one with more than 16 new discs, are both drawn in full
+		model.setRows(7);
+		model.wipeBoard();
+		view.displayBoard(model);
+		assertTrue(channel.take().startsWith(ESCAPE + "r" + ESCAPE + "H" + ESCAPE + "2J"));
+
+		ModelTest.play(model, 0, 1, 2, 3, 4, 5, 6, 0, 1, 2, 3, 4, 5, 6, 0, 1, 2);
+		view.displayBoard(model);
+		assertTrue(channel.take().startsWith(ESCAPE + "r" + ESCAPE + "H" + ESCAPE + "2J"));
+	}
+
+	@Test
+	void leavingDeltaLetsTheTerminalScrollAgain(){
+		RecordingChannel channel = new RecordingChannel();
+		TextView view = new TextView(channel);
+		view.setRenderMode(TextView.RenderMode.DELTA);
+		Model model = ModelTest.newModel(2, 3, 2);
+		view.displayBoard(model);
+		channel.take();
+
+		view.setRenderMode(TextView.RenderMode.FULL);
+		assertEquals(SAVE_CURSOR + ESCAPE + "r" + RESTORE_CURSOR, channel.take());
+
+		// Nothing is left to restore a second time
+		view.restoreTerminal();
+		assertEquals("", channel.take());
+	}
+
+	@Test
+	void quietShowsNoBoards(){
+		RecordingChannel channel = new RecordingChannel();
+		TextView view = new TextView(channel);
+		view.setRenderMode(TextView.RenderMode.QUIET);
+		Model model = ModelTest.newModel(6, 7, 4);
+		view.displayBoard(model);
+		model.makeMove(3);
+		view.displayBoard(model);
+		assertEquals("", channel.take());
+	}
+}
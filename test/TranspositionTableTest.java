@@ -0,0 +1,83 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+final class TranspositionTableTest
+{
+	// ========================================================================
+	// ================================ HELPERS ===============================
+	// ========================================================================
+	// Keys which differ only above the bits that pick the bucket share a bucket in any table up to 1 GB
+	private static final long KEY = 0x1234L;
+	private static final long SAME_BUCKET = KEY + (1L << 40);
+	private static final long ALSO_SAME_BUCKET = KEY + (2L << 40);
+
+	private static int depthStored(TranspositionTable table, long key){
+		long entry = table.probe(key);
+		return entry == TranspositionTable.NO_ENTRY ? -1 : TranspositionTable.depthOf(entry);
+	}
+
+	// ========================================================================
+	// ================================ TESTS =================================
+	// ========================================================================
+	@Test
+	void entriesUnpackToWhatWasStored(){
+		TranspositionTable table = new TranspositionTable(1);
+		table.store(KEY, -NegamaxSearch.WIN_SCORE + 12, 6, 17, TranspositionTable.BOUND_UPPER);
+
+		long entry = table.probe(KEY);
+		assertEquals(-NegamaxSearch.WIN_SCORE + 12, TranspositionTable.scoreOf(entry));
+		assertEquals(6, TranspositionTable.moveOf(entry));
+		assertEquals(17, TranspositionTable.depthOf(entry));
+		assertEquals(TranspositionTable.BOUND_UPPER, TranspositionTable.boundOf(entry));
+		assertEquals(TranspositionTable.NO_ENTRY, table.probe(SAME_BUCKET));
+	}
+
+	@Test
+	void aDeeperEntryIsKeptAlongsideNewerShallowOnes(){
+		TranspositionTable table = new TranspositionTable(1);
+		table.store(KEY, 1, 0, 10, TranspositionTable.BOUND_EXACT);
+		table.store(SAME_BUCKET, 2, 1, 3, TranspositionTable.BOUND_EXACT);
+		assertEquals(10, depthStored(table, KEY));
+		assertEquals(3, depthStored(table, SAME_BUCKET));
+
+		// The second slot always takes the newest position, so the deep entry survives
+		table.store(ALSO_SAME_BUCKET, 3, 2, 2, TranspositionTable.BOUND_EXACT);
+		assertEquals(10, depthStored(table, KEY));
+		assertEquals(-1, depthStored(table, SAME_BUCKET));
+		assertEquals(2, depthStored(table, ALSO_SAME_BUCKET));
+	}
+
+	@Test
+	void aSearchAtLeastAsDeepTakesTheFirstSlot(){
+		TranspositionTable table = new TranspositionTable(1);
+		table.store(KEY, 1, 0, 5, TranspositionTable.BOUND_EXACT);
+		table.store(SAME_BUCKET, 2, 1, 5, TranspositionTable.BOUND_EXACT);
+		assertEquals(-1, depthStored(table, KEY));
+		assertEquals(5, depthStored(table, SAME_BUCKET));
+	}
+
+	@Test
+	void aStoredPositionIsUpdatedInPlace(){
+		// Even by a shallower search, so a position never holds two different results in one bucket
+		TranspositionTable table = new TranspositionTable(1);
+		table.store(KEY, 1, 0, 8, TranspositionTable.BOUND_LOWER);
+		table.store(KEY, 7, 4, 2, TranspositionTable.BOUND_EXACT);
+
+		long entry = table.probe(KEY);
+		assertEquals(7, TranspositionTable.scoreOf(entry));
+		assertEquals(2, TranspositionTable.depthOf(entry));
+		assertEquals(TranspositionTable.BOUND_EXACT, TranspositionTable.boundOf(entry));
+	}
+
+	@Test
+	void clearingForgetsEveryEntry(){
+		TranspositionTable table = new TranspositionTable(1);
+		table.store(KEY, 1, 0, 8, TranspositionTable.BOUND_EXACT);
+		table.store(SAME_BUCKET, 1, 0, 2, TranspositionTable.BOUND_EXACT);
+		table.clear();
+		assertEquals(TranspositionTable.NO_ENTRY, table.probe(KEY));
+		assertEquals(TranspositionTable.NO_ENTRY, table.probe(SAME_BUCKET));
+		assertEquals(0, table.getStores());
+	}
+}